@@ -4,105 +4,215 @@
 import java.awt.*;
 import javax.swing.*;
 import java.math.*;
+import java.util.*;
 
 public class Circle
 {
-  private HomogenousPolynomial coeff; // represents the k coefficient in front of the left hand side in the equation above
+  private volatile HomogenousPolynomial coeff; // represents the k coefficient in front of the left hand side in the equation above,
+                                               // null until expanded from construction
   private HomogenousVector radCoeffs; // represents the coefficients u,v,w of the radical axis of the circle with the circumcircle
-                                      // of the reference triangle in the right hand side of the equation above
+                                      // of the reference triangle in the right hand side of the equation above, set before coeff
+  private Construction<Circle> construction; // how the circle is constructed from other objects, null if given by its equation
+  private int hash; // the cached hash of the ratio k : u : v : w, 0 if not yet computed
+  private volatile Point center; // the cached center, null if not yet computed
+  private volatile HomogenousPolynomial[] radSqu; // the cached numerator and denominator of the squared radius, null if not yet computed
+  private volatile Numeric.Shadow shadow; // the coefficients u,v,w with k = 1 in the triangle last drawn in, null until needed
 
   public Circle() // returns the circumcircle of the reference triangle
   {
-    coeff = new HomogenousPolynomial("1");
+    coeff = Constants.ONE;
     radCoeffs = new HomogenousVector(2);
   }
 
-  public Circle(HomogenousPolynomial coeff, HomogenousVector radCoeffs) // sets coeff and radCoeff
+  public Circle(HomogenousPolynomial coeff, HomogenousVector radCoeffs) // sets coeff and radCoeff, divided by their common factor
   {
     if (coeff.equalsZero())
       throw new IllegalArgumentException("coefficient must be nonzero");
     if (coeff.degree() + 2 != radCoeffs.degree())
       throw new IllegalArgumentException("degree of radical coefficients must be two more than degree of coefficient");
-    this.coeff = coeff;
-    this.radCoeffs = radCoeffs;
+    HomogenousPolynomial[] reduced = Grobner.removeCommonFactor(coeff, radCoeffs.getX(), radCoeffs.getY(), radCoeffs.getZ());
+    this.coeff = reduced[0].intern();
+    this.radCoeffs = new HomogenousVector(reduced[1].intern(), reduced[2].intern(), reduced[3].intern());
   }
 
   public Circle(HomogenousPolynomial coeff, HomogenousPolynomial radX, HomogenousPolynomial radY, HomogenousPolynomial radZ) // sets k, u, v, w
   {
-    radCoeffs = new HomogenousVector(radX, radY, radZ);
-    if (coeff.equalsZero())
-      throw new IllegalArgumentException("coefficient must be nonzero");
-    if (coeff.degree() + 2 != radCoeffs.degree())
-      throw new IllegalArgumentException("degree of radical coefficients must be two more than degree of coefficient");
-    this.coeff = coeff;
-    this.radCoeffs = radCoeffs;
+    this(coeff, new HomogenousVector(radX, radY, radZ));
   }
 
   public Circle(String coeffString, String radXString, String radYString, String radZString) // sets k, u, v, w by String
   {
-    HomogenousPolynomial coeff = new HomogenousPolynomial(coeffString);
-    HomogenousVector radCoeffs = new HomogenousVector(radXString, radYString, radZString);
-    if (coeff.equalsZero())
-      throw new IllegalArgumentException("coefficient must be nonzero");
-    if (coeff.degree() + 2 != radCoeffs.degree())
-      throw new IllegalArgumentException("degree of radical coefficients must be two more than degree of coefficient");
-    this.coeff = coeff;
-    this.radCoeffs = radCoeffs;
+    this(new HomogenousPolynomial(coeffString), new HomogenousVector(radXString, radYString, radZString));
   }
 
-  public Circle(Circle other) // copy constructor
+  public Circle(Circle other) // copy constructor, sharing whatever other has already computed
   {
-    coeff = other.coeff;
     radCoeffs = other.radCoeffs;
+    coeff = other.coeff;
+    construction = other.construction;
+    hash = other.hash;
+    center = other.center;
+    radSqu = other.radSqu;
+    shadow = other.shadow;
+  }
+
+  public Circle(Construction<Circle> construction) // sets the construction of the circle, its equation being expanded when first
+                                                   // needed, at once if the construction has too high a degree or if its k
+                                                   // vanishes at a random point so that only expanding can tell whether k is zero
+  {
+    this.construction = construction;
+    if (construction.degree() > Construction.MAX_DEGREE || construction.sample(0)[0] == 0)
+      expand();
   }
 
   public Circle(Point P1, Point P2, Point P3) // returns the circle through P1, P2, and P3
   {
-    Circle circle = Geometry.circumcircle(P1, P2, P3);
-    coeff = circle.coeff;
-    radCoeffs = circle.radCoeffs;
+    this(Geometry.circumcircle(P1, P2, P3));
   }
 
   public Circle(Point P1, Point P2) // returns the circle with diamter P1P2
   {
-    Circle circle = Geometry.diameter(P1, P2);
-    coeff = circle.coeff;
-    radCoeffs = circle.radCoeffs;
+    this(Geometry.diameter(P1, P2));
+  }
+
+  public boolean equals(Circle other) // returns whether this and other have the same equation up to scaling,
+                                      // i.e. k'u = ku', k'v = kv' and k'w = kw'
+  {
+    if (this == other)
+      return true;
+    long[] s1 = sample(0);
+    long[] s2 = other.sample(0);
+    Modular sampleField = Modular.sampleField();
+    for (int i = 1; i <= 3; i++)
+      if (sampleField.sub(sampleField.mul(s1[i], s2[0]), sampleField.mul(s2[i], s1[0])) != 0)
+        return false;
+    HomogenousPolynomial coeff = getCoeff();
+    HomogenousVector radCoeffs = getRadCoeffs();
+    HomogenousPolynomial otherCoeff = other.getCoeff();
+    HomogenousVector otherRadCoeffs = other.getRadCoeffs();
+    return Modular.allZero(field ->
+    {
+      ModularPolynomial k1 = new ModularPolynomial(coeff, field);
+      ModularPolynomial k2 = new ModularPolynomial(otherCoeff, field);
+      ModularPolynomial[] v1 = radCoeffs.mod(field);
+      ModularPolynomial[] v2 = otherRadCoeffs.mod(field);
+      return new ModularPolynomial[] {v1[0].times(k2).minus(v2[0].times(k1)), v1[1].times(k2).minus(v2[1].times(k1)), v1[2].times(k2).minus(v2[2].times(k1))};
+    }, () ->
+    {
+      HomogenousVector v1 = radCoeffs.times(otherCoeff);
+      HomogenousVector v2 = otherRadCoeffs.times(coeff);
+      return v1.getX().equals(v2.getX()) && v1.getY().equals(v2.getY()) && v1.getZ().equals(v2.getZ());
+    });
+  }
+
+  public boolean equals(Object o) // returns whether o is a circle with the same equation up to scaling
+  {
+    if (o instanceof Circle)
+      return equals((Circle) o);
+    else
+      return false;
+  }
+
+  public Point center() // returns the cetner of the circle, given by a formula, constructed once
+  {
+    Point O = center;
+    if (O == null)
+    {
+      O = new Point(new Construction<HomogenousVector>(degree() + 4, this::computeCenter, this::centerSample, n -> n.center(shadow(n))));
+      center = O;
+    }
+    return O;
   }
 
-  public boolean equals(Circle other) // returns whether this and other have the same equation up to scaling
+  private HomogenousVector computeCenter() // computes the coordinates of the center of the circle
   {
-    return radCoeffs.times(other.coeff).equals(other.radCoeffs.times(coeff));
+    HomogenousPolynomial coeff = getCoeff();
+    HomogenousVector radCoeffs = getRadCoeffs();
+    HomogenousPolynomial xCoord = Constants.A2.times(radCoeffs.dot(Constants.MEDIAN_X)).plus(Constants.B2_MINUS_C2.times(radCoeffs.dot(Constants.DIFF_X)).plus(coeff.times(Constants.CENTER_X)));
+    HomogenousPolynomial yCoord = Constants.B2.times(radCoeffs.dot(Constants.MEDIAN_Y)).plus(Constants.C2_MINUS_A2.times(radCoeffs.dot(Constants.DIFF_Y)).plus(coeff.times(Constants.CENTER_Y)));
+    HomogenousPolynomial zCoord = Constants.C2.times(radCoeffs.dot(Constants.MEDIAN_Z)).plus(Constants.A2_MINUS_B2.times(radCoeffs.dot(Constants.DIFF_Z)).plus(coeff.times(Constants.CENTER_Z)));
+    return new HomogenousVector(xCoord, yCoord, zCoord);
   }
 
-  public Point center() // returns the cetner of the circle, given by a formula
+  private long[] centerSample(int t) // returns the coordinates of the center at the random point Modular.sample(t) in Montgomery
+                                     // form, by the formula in computeCenter
   {
-    HomogenousPolynomial xCoord = new HomogenousPolynomial("a^2").times(radCoeffs.dot(new HomogenousVector("-2", "1", "1"))).plus(new HomogenousPolynomial("b^2-c^2").times(radCoeffs.dot(new HomogenousVector("0", "1", "-1"))).plus(coeff.times(new HomogenousPolynomial("-a^4+a^2b^2+a^2c^2"))));
-    HomogenousPolynomial yCoord = new HomogenousPolynomial("b^2").times(radCoeffs.dot(new HomogenousVector("1", "-2", "1"))).plus(new HomogenousPolynomial("c^2-a^2").times(radCoeffs.dot(new HomogenousVector("-1", "0", "1"))).plus(coeff.times(new HomogenousPolynomial("a^2b^2-b^4+b^2c^2"))));
-    HomogenousPolynomial zCoord = new HomogenousPolynomial("c^2").times(radCoeffs.dot(new HomogenousVector("1", "1", "-2"))).plus(new HomogenousPolynomial("a^2-b^2").times(radCoeffs.dot(new HomogenousVector("1", "-1", "0"))).plus(coeff.times(new HomogenousPolynomial("a^2c^2+b^2c^2-c^4"))));
-    return new Point(xCoord, yCoord, zCoord);
+    Modular field = Modular.sampleField();
+    long[] s = sample(t);
+    long[] u = {s[1], s[2], s[3]};
+    long x = field.add(field.mul(Constants.A2.sample(t), field.dot(u, Constants.MEDIAN_X.sample(t))), field.add(field.mul(Constants.B2_MINUS_C2.sample(t), field.dot(u, Constants.DIFF_X.sample(t))), field.mul(s[0], Constants.CENTER_X.sample(t))));
+    long y = field.add(field.mul(Constants.B2.sample(t), field.dot(u, Constants.MEDIAN_Y.sample(t))), field.add(field.mul(Constants.C2_MINUS_A2.sample(t), field.dot(u, Constants.DIFF_Y.sample(t))), field.mul(s[0], Constants.CENTER_Y.sample(t))));
+    long z = field.add(field.mul(Constants.C2.sample(t), field.dot(u, Constants.MEDIAN_Z.sample(t))), field.add(field.mul(Constants.A2_MINUS_B2.sample(t), field.dot(u, Constants.DIFF_Z.sample(t))), field.mul(s[0], Constants.CENTER_Z.sample(t))));
+    return new long[] {x, y, z};
   }
 
   public String toString() // returns a String for the equation of the circle
   {
+    HomogenousPolynomial coeff = getCoeff();
+    HomogenousVector radCoeffs = getRadCoeffs();
     return "( " + coeff + " ) * ( a^2yz+b^2zx+c^2xy ) = ( x+y+z ) * ( ( " + radCoeffs.getX() + " )x+( " + radCoeffs.getY() + " )y+( " + radCoeffs.getZ() + " )z )";
   }
 
-  public HomogenousPolynomial getCoeff() // getter for coeff
+  public HomogenousPolynomial getCoeff() // getter for coeff, expanding the equation from the construction the first time
   {
+    expand();
     return coeff;
   }
 
-  public HomogenousVector getRadCoeffs() // getter for radCoeff
+  public HomogenousVector getRadCoeffs() // getter for radCoeff, expanding the equation from the construction the first time
   {
+    expand();
     return radCoeffs;
   }
 
+  private void expand() // expands k, u, v, w from the construction if not yet done
+  {
+    if (coeff == null)
+    {
+      Circle c = construction.expand();
+      synchronized (this)
+      {
+        if (coeff == null)
+        {
+          radCoeffs = c.getRadCoeffs();
+          coeff = c.getCoeff();
+        }
+      }
+    }
+  }
+
+  public int degree() // returns the degree of k, or a bound on it if the equation is not yet expanded
+  {
+    HomogenousPolynomial k = coeff;
+    return k != null ? k.degree() : construction.degree();
+  }
+
+  public long[] sample(int t) // returns k, u, v, w at the random point Modular.sample(t) in Montgomery form, from the construction
+                              // if the equation is not yet expanded, not to be modified
+  {
+    HomogenousPolynomial k = coeff;
+    if (k == null)
+      return construction.sample(t);
+    long[] u = radCoeffs.sample(t);
+    return new long[] {k.sample(t), u[0], u[1], u[2]};
+  }
+
   public boolean contains(Point P) // return whether P is on the circle
   {
     return P.on(this);
   }
 
+  public long sample(long[] v, int t) // returns k(a^2yz+b^2zx+c^2xy)-(x+y+z)(ux+vy+wz) at the random point Modular.sample(t) in
+                                      // Montgomery form, where v holds the coordinates x, y, z sampled there
+  {
+    Modular field = Modular.sampleField();
+    long[] s = sample(t);
+    long[] squ = Constants.SQU.sample(t);
+    long pow = field.mul(s[0], field.dot(squ, new long[] {field.mul(v[1], v[2]), field.mul(v[2], v[0]), field.mul(v[0], v[1])}));
+    long rad = field.mul(field.add(field.add(v[0], v[1]), v[2]), field.dot(v, new long[] {s[1], s[2], s[3]}));
+    return field.sub(pow, rad);
+  }
+
   public Line radAxis(Circle other) // returns the radical axis of this and other
   {
     return Geometry.radAxis(this, other);
@@ -118,18 +228,29 @@ public class Circle
     return Geometry.isTangent(this, other);
   }
 
-  public HomogenousPolynomial[] radSqu()
+  public HomogenousPolynomial[] radSqu() // returns the squared radius as a numerator and denominator, computed once
+  {
+    HomogenousPolynomial[] frac = radSqu;
+    if (frac == null)
+    {
+      frac = computeRadSqu();
+      radSqu = frac;
+    }
+    return frac.clone();
+  }
+
+  private HomogenousPolynomial[] computeRadSqu() // computes the squared radius by a given formula
   {
+    HomogenousPolynomial coeff = getCoeff();
+    HomogenousVector radCoeffs = getRadCoeffs();
     HomogenousPolynomial[] frac = new HomogenousPolynomial[2];
-    HomogenousPolynomial area16 = new HomogenousPolynomial("-a^4-b^4-c^4+2a^2b^2+2b^2c^2+2a^2c^2");
-    HomogenousPolynomial squSum = new HomogenousPolynomial("a^2+b^2+c^2");
-    HomogenousPolynomial squA = new HomogenousPolynomial("-a^2+b^2+c^2");
-    HomogenousPolynomial squB = new HomogenousPolynomial("a^2-b^2+c^2");
-    HomogenousPolynomial squC = new HomogenousPolynomial("a^2+b^2-c^2");
-    HomogenousPolynomial squAB = squA.times(squB);
-    HomogenousPolynomial squBC = squB.times(squC);
-    HomogenousPolynomial squCA = squC.times(squA);
-    HomogenousPolynomial squABC = squA.times(squBC);
+    HomogenousPolynomial area16 = Constants.AREA16;
+    HomogenousPolynomial squA = Constants.SQU_A;
+    HomogenousPolynomial squB = Constants.SQU_B;
+    HomogenousPolynomial squC = Constants.SQU_C;
+    HomogenousPolynomial squAB = Constants.SQU_AB;
+    HomogenousPolynomial squBC = Constants.SQU_BC;
+    HomogenousPolynomial squCA = Constants.SQU_CA;
     HomogenousPolynomial u = radCoeffs.getX();
     HomogenousPolynomial v = radCoeffs.getY();
     HomogenousPolynomial w = radCoeffs.getZ();
@@ -138,9 +259,26 @@ public class Circle
     HomogenousPolynomial uv2 = u.minus(v).pow(2);
     HomogenousPolynomial vw2 = v.minus(w).pow(2);
     HomogenousPolynomial wu2 = w.minus(u).pow(2);
-    frac[0] = (squSum.times(area16).times(f2)).minus(squABC.times(f2)).plus(squA.times(vw2).times(new BigInteger("4"))).plus(squB.times(wu2).times(new BigInteger("4"))).plus(squC.times(uv2).times(new BigInteger("4"))).minus(radCoeffs.weight().times(area16).times(new BigInteger("4")).times(f)).plus(squBC.times(u).times(f).times(new BigInteger("4"))).plus(squCA.times(v).times(f).times(new BigInteger("4"))).plus(squAB.times(w).times(f).times(new BigInteger("4")));
+    frac[0] = Constants.RAD_SQU_CONST.times(f2).plus(squA.times(vw2).times(new BigInteger("4"))).plus(squB.times(wu2).times(new BigInteger("4"))).plus(squC.times(uv2).times(new BigInteger("4"))).minus(radCoeffs.weight().times(area16).times(new BigInteger("4")).times(f)).plus(squBC.times(u).times(f).times(new BigInteger("4"))).plus(squCA.times(v).times(f).times(new BigInteger("4"))).plus(squAB.times(w).times(f).times(new BigInteger("4")));
     frac[1] = area16.times(new BigInteger("8")).times(f2);
-    System.out.println();
+    ArrayList<HomogenousPolynomial> factors = new ArrayList<HomogenousPolynomial>(Arrays.asList(Constants.AREA16_FACTORS));
+    for (HomogenousPolynomial h : Grobner.factor(f))
+    {
+      factors.add(h);
+      factors.add(h);
+    }
+    for (HomogenousPolynomial h : factors) // cancels the factors of the denominator that divide the numerator
+    {
+      HomogenousPolynomial q = frac[0].divideExact(h);
+      if (q != null)
+      {
+        frac[0] = q;
+        frac[1] = frac[1].divideExact(h);
+      }
+    }
+    BigInteger gcd = frac[0].gcd().gcd(frac[1].gcd());
+    frac[0] = frac[0].div(gcd);
+    frac[1] = frac[1].div(gcd);
     return frac;
   }
 
@@ -169,24 +307,36 @@ public class Circle
 
   public int[] screenCoords(int ax, int ay, int bx, int by, int cx, int cy)
   {
-    HomogenousPolynomial[] rad = radSqu();
-    int a = (int) Math.round(Math.sqrt((bx - cx) * (bx - cx) + (by - cy) * (by - cy)));
-    int b = (int) Math.round(Math.sqrt((cx - ax) * (cx - ax) + (cy - ay) * (cy - ay)));
-    int c = (int) Math.round(Math.sqrt((ax - bx) * (ax - bx) + (ay - by) * (ay - by)));
-    BigDecimal[] centerU = center().getCoords().eval(new BigInteger(a + ""), new BigInteger(b + ""), new BigInteger(c + ""));
-    double[] centerV = new double[3];
-    centerV[0] = centerU[0].doubleValue();
-    centerV[1] = centerU[1].doubleValue();
-    centerV[2] = centerU[2].doubleValue();
+    Numeric n = Numeric.of(ax, ay, bx, by, cx, cy);
+    double[] v = shadow(n);
+    double[] O = n.toScreen(n.center(v));
     int[] sC = new int[3];
-    sC[0] = (int) Math.round(centerV[0] * ax + centerV[1] * bx + centerV[2] * cx);
-    sC[1] = (int) Math.round(centerV[0] * ay + centerV[1] * by + centerV[2] * cy);
-    sC[2] = (int) Math.round(Math.sqrt((rad[0].eval(new BigInteger(a + ""), new BigInteger(b + ""), new BigInteger(c + ""))).divide(rad[1].eval(new BigInteger(a + ""), new BigInteger(b + ""), new BigInteger(c + ""))).doubleValue()));
+    sC[0] = (int) Math.round(O[0]);
+    sC[1] = (int) Math.round(O[1]);
+    sC[2] = (int) Math.round(n.radius(v));
     return sC;
   }
 
-  public int hashCode()
+  public double[] shadow(Numeric n) // returns u,v,w divided by k in triangle n, computed once from the shadows of the inputs
+                                    // of its construction or else from its equation, not to be modified
+  {
+    Numeric.Shadow s = shadow;
+    if (s == null || s.triangle() != n)
+    {
+      s = new Numeric.Shadow(n, construction != null ? construction.eval(n) : n.eval(coeff, radCoeffs));
+      shadow = s;
+    }
+    return s.coords();
+  }
+
+  public int hashCode() // returns a hash of the ratio k : u : v : w, computed once
   {
-    return coeff.hashCode();
+    int h = hash;
+    if (h == 0)
+    {
+      h = HomogenousVector.projectiveHash(sample(0));
+      hash = h;
+    }
+    return h;
   }
 }
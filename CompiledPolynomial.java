@@ -0,0 +1,303 @@
+// represents a homogenous polynomial compiled for repeated evaluation at different side lengths (a, b, c)
+// the nonzero terms are grouped into rows by their power of a, in decreasing order, and the rows are combined by Horner's rule in
+// a, while the powers of b and c are read from tables built once per evaluation, so an evaluation costs two multiplications per
+// term and one per power of a, instead of three powers per term
+// the coefficients are converted once to each number type they are evaluated in, and to Montgomery form for the last field used
+// batches of triangles are evaluated BLOCK at a time with every loop running over the triangles of the block, which keeps the
+// power tables of a block in cache and leaves the double loops free of dependencies, so the JIT can vectorize them
+
+import java.math.*;
+
+public class CompiledPolynomial
+{
+  private static final int BLOCK = 256; // the number of triangles evaluated together in a batch
+
+  private final int degree; // the degree of the polynomial
+  private final int[] rows; // the index of the first term of each row, followed by the number of terms
+  private final int[] aPowers; // the power of a of each row, decreasing
+  private final int[] bPowers; // the power of b of each term
+  private final BigInteger[] coeffs; // the coefficient of each term
+  private final BigDecimal[] decimalCoeffs; // the coefficients as BigDecimals
+  private final double[] doubleCoeffs; // the coefficients rounded to doubles
+  private volatile long[] montgomeryCoeffs; // the coefficients in Montgomery form for the last field used, followed by its prime,
+                                            // null if not yet used
+
+  public CompiledPolynomial(int degree, int[] keys, BigInteger[] values) // compiles the polynomial of degree d whose nonzero
+                                                                         // terms are values with keys (i << 16) | j for
+                                                                         // a^ib^jc^(d-i-j), in increasing order
+  {
+    this.degree = degree;
+    int n = keys.length;
+    int rowCount = 0;
+    for (int k = 0; k < n; k++)
+      if (k == 0 || keys[k] >>> 16 != keys[k - 1] >>> 16)
+        rowCount++;
+    rows = new int[rowCount + 1];
+    aPowers = new int[rowCount];
+    bPowers = new int[n];
+    coeffs = new BigInteger[n];
+    decimalCoeffs = new BigDecimal[n];
+    doubleCoeffs = new double[n];
+    int r = -1;
+    for (int k = 0; k < n; k++)
+    {
+      int key = keys[n - 1 - k];
+      if (r < 0 || key >>> 16 != aPowers[r])
+      {
+        r++;
+        rows[r] = k;
+        aPowers[r] = key >>> 16;
+      }
+      bPowers[k] = key & 0xFFFF;
+      coeffs[k] = values[n - 1 - k];
+      decimalCoeffs[k] = new BigDecimal(coeffs[k]);
+      doubleCoeffs[k] = coeffs[k].doubleValue();
+    }
+    rows[rowCount] = n;
+  }
+
+  public int degree() // getter for degree
+  {
+    return degree;
+  }
+
+  public double eval(double a, double b, double c) // returns the value at (a, b, c) in double precision
+  {
+    double[] bPow = new double[degree + 1];
+    double[] cPow = new double[degree + 1];
+    bPow[0] = 1;
+    cPow[0] = 1;
+    for (int e = 1; e <= degree; e++)
+    {
+      bPow[e] = bPow[e - 1] * b;
+      cPow[e] = cPow[e - 1] * c;
+    }
+    double v = 0;
+    for (int r = 0; r < aPowers.length; r++)
+    {
+      int i = aPowers[r];
+      for (int k = rows[r]; k < rows[r + 1]; k++)
+        v += doubleCoeffs[k] * bPow[bPowers[k]] * cPow[degree - i - bPowers[k]];
+      for (int e = r + 1 < aPowers.length ? aPowers[r + 1] : 0; e < i; e++)
+        v *= a;
+    }
+    return v;
+  }
+
+  public BigInteger eval(BigInteger a, BigInteger b, BigInteger c) // returns the exact value at (a, b, c)
+  {
+    BigInteger[] bPow = new BigInteger[degree + 1];
+    BigInteger[] cPow = new BigInteger[degree + 1];
+    bPow[0] = BigInteger.ONE;
+    cPow[0] = BigInteger.ONE;
+    for (int e = 1; e <= degree; e++)
+    {
+      bPow[e] = bPow[e - 1].multiply(b);
+      cPow[e] = cPow[e - 1].multiply(c);
+    }
+    BigInteger v = BigInteger.ZERO;
+    for (int r = 0; r < aPowers.length; r++)
+    {
+      int i = aPowers[r];
+      for (int k = rows[r]; k < rows[r + 1]; k++)
+        v = v.add(coeffs[k].multiply(bPow[bPowers[k]]).multiply(cPow[degree - i - bPowers[k]]));
+      int next = r + 1 < aPowers.length ? aPowers[r + 1] : 0;
+      if (i > next)
+        v = v.multiply(i - next == 1 ? a : a.pow(i - next));
+    }
+    return v;
+  }
+
+  public BigDecimal eval(BigDecimal a, BigDecimal b, BigDecimal c) // returns the exact value at (a, b, c)
+  {
+    BigDecimal[] bPow = new BigDecimal[degree + 1];
+    BigDecimal[] cPow = new BigDecimal[degree + 1];
+    bPow[0] = BigDecimal.ONE;
+    cPow[0] = BigDecimal.ONE;
+    for (int e = 1; e <= degree; e++)
+    {
+      bPow[e] = bPow[e - 1].multiply(b);
+      cPow[e] = cPow[e - 1].multiply(c);
+    }
+    BigDecimal v = BigDecimal.ZERO;
+    for (int r = 0; r < aPowers.length; r++)
+    {
+      int i = aPowers[r];
+      for (int k = rows[r]; k < rows[r + 1]; k++)
+        v = v.add(decimalCoeffs[k].multiply(bPow[bPowers[k]]).multiply(cPow[degree - i - bPowers[k]]));
+      int next = r + 1 < aPowers.length ? aPowers[r + 1] : 0;
+      if (i > next)
+        v = v.multiply(i - next == 1 ? a : a.pow(i - next));
+    }
+    return v;
+  }
+
+  public long evalMontgomery(long a, long b, long c, Modular field) // returns the value at (a, b, c) in Montgomery form, for
+                                                                    // a, b, c in Montgomery form
+  {
+    long[] coeffs = montgomeryCoeffs(field);
+    long[] bPow = new long[degree + 1];
+    long[] cPow = new long[degree + 1];
+    bPow[0] = field.toMontgomery(1);
+    cPow[0] = bPow[0];
+    for (int e = 1; e <= degree; e++)
+    {
+      bPow[e] = field.mul(bPow[e - 1], b);
+      cPow[e] = field.mul(cPow[e - 1], c);
+    }
+    long v = 0;
+    for (int r = 0; r < aPowers.length; r++)
+    {
+      int i = aPowers[r];
+      for (int k = rows[r]; k < rows[r + 1]; k++)
+        v = field.add(v, field.mul(coeffs[k], field.mul(bPow[bPowers[k]], cPow[degree - i - bPowers[k]])));
+      for (int e = r + 1 < aPowers.length ? aPowers[r + 1] : 0; e < i; e++)
+        v = field.mul(v, a);
+    }
+    return v;
+  }
+
+  public void eval(double[] a, double[] b, double[] c, double[] values) // sets values[n] to the value at (a[n], b[n], c[n]) in
+                                                                        // double precision, for every n
+  {
+    int count = values.length;
+    if (a.length != count || b.length != count || c.length != count)
+      throw new IllegalArgumentException("arrays must have the same length");
+    double[][] block = new double[4][BLOCK];
+    double[][][] pow = new double[2][degree + 1][BLOCK];
+    for (int start = 0; start < count; start += BLOCK)
+    {
+      int len = Math.min(BLOCK, count - start);
+      System.arraycopy(a, start, block[0], 0, len);
+      System.arraycopy(b, start, block[1], 0, len);
+      System.arraycopy(c, start, block[2], 0, len);
+      evalBlock(block, pow, len);
+      System.arraycopy(block[3], 0, values, start, len);
+    }
+  }
+
+  public void eval(double[] sides, double[] values) // sets values[n] to the value at the triple (sides[3n], sides[3n+1],
+                                                    // sides[3n+2]) in double precision, for every n
+  {
+    int count = values.length;
+    if (sides.length != 3 * count)
+      throw new IllegalArgumentException("sides must hold a triple for each value");
+    double[][] block = new double[4][BLOCK];
+    double[][][] pow = new double[2][degree + 1][BLOCK];
+    for (int start = 0; start < count; start += BLOCK)
+    {
+      int len = Math.min(BLOCK, count - start);
+      for (int m = 0; m < len; m++)
+      {
+        block[0][m] = sides[3 * (start + m)];
+        block[1][m] = sides[3 * (start + m) + 1];
+        block[2][m] = sides[3 * (start + m) + 2];
+      }
+      evalBlock(block, pow, len);
+      System.arraycopy(block[3], 0, values, start, len);
+    }
+  }
+
+  private void evalBlock(double[][] block, double[][][] pow, int len) // sets block[3] to the values at the first len triangles
+                                                                      // with sides block[0], block[1], block[2], using pow for
+                                                                      // the tables of powers of b and c
+  {
+    double[] a = block[0];
+    double[] values = block[3];
+    double[][] bPow = pow[0];
+    double[][] cPow = pow[1];
+    for (int m = 0; m < len; m++)
+    {
+      bPow[0][m] = 1;
+      cPow[0][m] = 1;
+      values[m] = 0;
+    }
+    for (int e = 1; e <= degree; e++)
+    {
+      double[] bPrev = bPow[e - 1];
+      double[] cPrev = cPow[e - 1];
+      double[] bNext = bPow[e];
+      double[] cNext = cPow[e];
+      for (int m = 0; m < len; m++)
+      {
+        bNext[m] = bPrev[m] * block[1][m];
+        cNext[m] = cPrev[m] * block[2][m];
+      }
+    }
+    for (int r = 0; r < aPowers.length; r++)
+    {
+      int i = aPowers[r];
+      for (int k = rows[r]; k < rows[r + 1]; k++)
+      {
+        double coeff = doubleCoeffs[k];
+        double[] bp = bPow[bPowers[k]];
+        double[] cp = cPow[degree - i - bPowers[k]];
+        for (int m = 0; m < len; m++)
+          values[m] += coeff * bp[m] * cp[m];
+      }
+      for (int e = r + 1 < aPowers.length ? aPowers[r + 1] : 0; e < i; e++)
+        for (int m = 0; m < len; m++)
+          values[m] *= a[m];
+    }
+  }
+
+  public void evalMontgomery(long[] a, long[] b, long[] c, long[] values, Modular field) // sets values[n] to the value at
+                                                                                         // (a[n], b[n], c[n]) in Montgomery
+                                                                                         // form, for every n, for a, b, c in
+                                                                                         // Montgomery form
+  {
+    int count = values.length;
+    if (a.length != count || b.length != count || c.length != count)
+      throw new IllegalArgumentException("arrays must have the same length");
+    long[] coeffs = montgomeryCoeffs(field);
+    long one = field.toMontgomery(1);
+    long[][] bPow = new long[degree + 1][BLOCK];
+    long[][] cPow = new long[degree + 1][BLOCK];
+    for (int start = 0; start < count; start += BLOCK)
+    {
+      int len = Math.min(BLOCK, count - start);
+      for (int m = 0; m < len; m++)
+      {
+        bPow[0][m] = one;
+        cPow[0][m] = one;
+        values[start + m] = 0;
+      }
+      for (int e = 1; e <= degree; e++)
+        for (int m = 0; m < len; m++)
+        {
+          bPow[e][m] = field.mul(bPow[e - 1][m], b[start + m]);
+          cPow[e][m] = field.mul(cPow[e - 1][m], c[start + m]);
+        }
+      for (int r = 0; r < aPowers.length; r++)
+      {
+        int i = aPowers[r];
+        for (int k = rows[r]; k < rows[r + 1]; k++)
+        {
+          long coeff = coeffs[k];
+          long[] bp = bPow[bPowers[k]];
+          long[] cp = cPow[degree - i - bPowers[k]];
+          for (int m = 0; m < len; m++)
+            values[start + m] = field.add(values[start + m], field.mul(coeff, field.mul(bp[m], cp[m])));
+        }
+        for (int e = r + 1 < aPowers.length ? aPowers[r + 1] : 0; e < i; e++)
+          for (int m = 0; m < len; m++)
+            values[start + m] = field.mul(values[start + m], a[start + m]);
+      }
+    }
+  }
+
+  private long[] montgomeryCoeffs(Modular field) // returns the coefficients in Montgomery form for field followed by its prime,
+                                                 // converted once until another field is used
+  {
+    long[] m = montgomeryCoeffs;
+    if (m == null || m[coeffs.length] != field.prime())
+    {
+      m = new long[coeffs.length + 1];
+      for (int k = 0; k < coeffs.length; k++)
+        m[k] = field.toMontgomery(coeffs[k]);
+      m[coeffs.length] = field.prime();
+      montgomeryCoeffs = m;
+    }
+    return m;
+  }
+}
@@ -0,0 +1,478 @@
+// searches for theorems about the points constructed from a triangle: starting from its vertices, each level adds the
+// midpoints, feet, centroids, circumcenters, orthocenters and line intersections of the points found so far, up to a depth
+// points and lines are identified by their values at the random points Modular.sample(0) and Modular.sample(1), scaled so
+// the first nonzero entry is 1, which agree only for equal objects, so each is kept once however it was constructed
+// every line through two points, circle through three and point where two lines meet is tested against the other points or
+// lines in double precision in a generic triangle first, and only the few that pass are verified by the predicates in
+// Geometry, the first task to reach a line, circle or point of concurrency reporting it once with all the objects on it
+// collinearities that follow from the constructions themselves, like a midpoint lying on its segment, are not reported
+// the tests run in parallel on a ForkJoinPool, theorems being passed to the consumer one at a time as they are verified
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+import java.util.stream.*;
+
+public class ConjectureSearch
+{
+  private static final double EPSILON = 1e-9; // the largest determinant or power the numeric tests treat as zero
+  private static final Numeric TRIANGLE = new Numeric(0, 0, 1, 0, 0.23, 0.71); // the scalene triangle the numeric tests run in
+
+  private final int depth; // the number of levels of constructions
+  private final int maxPoints; // the largest number of points kept, constructions beyond it being dropped
+  private final int maxLines; // the largest number of lines tested for concurrency
+  private final ArrayList<Point> points = new ArrayList<Point>(); // the points found, in order of construction
+  private final ArrayList<String> names = new ArrayList<String>(); // the name of each point, its construction
+  private final ArrayList<double[]> shadows = new ArrayList<double[]>(); // the coordinates of each point in TRIANGLE
+  private final HashMap<Key, Integer> index = new HashMap<Key, Integer>(); // the position of each point by its key
+  private final HashMap<Key, Set<Integer>> knownLines = new HashMap<Key, Set<Integer>>(); // the points known to lie on each
+                                                                                           // line from their constructions
+  private int levels; // the number of levels constructed so far
+  private int levelStart; // the position of the first point of the last level
+  private final Object lock = new Object(); // held while passing a theorem to the consumer
+
+  public ConjectureSearch(int depth, int maxPoints, int maxLines) // returns a search from the vertices A, B, C of the
+                                                                  // reference triangle with these bounds
+  {
+    if (depth < 0 || maxPoints < 0 || maxLines < 0)
+      throw new IllegalArgumentException("bounds cannot be negative");
+    this.depth = depth;
+    this.maxPoints = maxPoints;
+    this.maxLines = maxLines;
+    add("A", Constants.A);
+    add("B", Constants.B);
+    add("C", Constants.C);
+  }
+
+  public boolean add(String name, Point P) // adds a point to construct from, returns whether it was not already found
+  {
+    Key key = key(P.sample(0), P.sample(1));
+    if (key == null)
+      throw new IllegalArgumentException("point cannot be degenerate");
+    if (index.containsKey(key))
+      return false;
+    insert(name, P, key);
+    return true;
+  }
+
+  public List<Point> getPoints() // getter for points
+  {
+    return Collections.unmodifiableList(points);
+  }
+
+  public List<String> getNames() // getter for names
+  {
+    return Collections.unmodifiableList(names);
+  }
+
+  public int search(Consumer<Theorem> found) // searches in the common pool, see below
+  {
+    return search(ForkJoinPool.commonPool(), found);
+  }
+
+  public int search(ForkJoinPool pool, Consumer<Theorem> found) // constructs the remaining levels of points and passes each
+                                                                // theorem about them to found as it is verified, never two
+                                                                // at once, returns the number of theorems found
+  {
+    while (levels < depth)
+      construct(pool);
+    int[] count = new int[1];
+    Consumer<Theorem> report = theorem ->
+    {
+      synchronized (lock)
+      {
+        count[0]++;
+        found.accept(theorem);
+      }
+    };
+    pool.submit(() -> searchCollinear(report)).join();
+    pool.submit(() -> searchConcyclic(report)).join();
+    ArrayList<String> lineNames = new ArrayList<String>();
+    Line[] lines = lines(lineNames);
+    pool.submit(() -> searchConcurrent(lines, lineNames, report)).join();
+    return count[0];
+  }
+
+  private void insert(String name, Point P, Key key) // adds a new point with its key
+  {
+    index.put(key, points.size());
+    points.add(P);
+    names.add(name);
+    shadows.add(P.shadow(TRIANGLE));
+  }
+
+  private void construct(ForkJoinPool pool) // adds a level of points constructed from those found, at least one input of each
+                                            // being from the last level, in the order of their inputs
+  {
+    int n = points.size();
+    int from = levelStart;
+    List<Candidate> candidates = pool.submit(() -> IntStream.range(0, n).parallel().mapToObj(i -> candidates(i, from, n)).flatMap(List::stream).collect(Collectors.toList())).join();
+    levelStart = n;
+    levels++;
+    for (Candidate c : candidates)
+    {
+      Integer k = index.get(c.key);
+      if (k == null)
+      {
+        if (points.size() >= maxPoints)
+          continue;
+        k = points.size();
+        insert(c.name, c.point, c.key);
+      }
+      for (int m = 0; m < c.on.length; m += 2)
+        know(c.on[m], c.on[m + 1], k);
+    }
+  }
+
+  private List<Candidate> candidates(int i, int from, int n) // returns the points constructed from the first n points with the
+                                                             // ith as first input and one input at least from
+  {
+    ArrayList<Candidate> list = new ArrayList<Candidate>();
+    Point P1 = points.get(i);
+    for (int j = i + 1; j < n; j++)
+    {
+      Point P2 = points.get(j);
+      if (j >= from)
+        candidate(list, "midpoint", () -> Geometry.midpoint(P1, P2), new int[] {i, j}, i, j);
+      for (int k = j + 1; k < n; k++)
+      {
+        if (nearlyCollinear(shadows.get(i), shadows.get(j), shadows.get(k)))
+          continue;
+        if (k >= from)
+        {
+          Point P3 = points.get(k);
+          candidate(list, "centroid", () -> Geometry.centroid(P1, P2, P3), new int[0], i, j, k);
+          candidate(list, "circumcenter", () -> Geometry.circumcenter(P1, P2, P3), new int[0], i, j, k);
+          candidate(list, "orthocenter", () -> Geometry.orthocenter(P1, P2, P3), new int[0], i, j, k);
+          candidate(list, "foot", () -> Geometry.foot(P1, P2, P3), new int[] {j, k}, i, j, k);
+          candidate(list, "foot", () -> Geometry.foot(P2, P1, P3), new int[] {i, k}, j, i, k);
+          candidate(list, "foot", () -> Geometry.foot(P3, P1, P2), new int[] {i, j}, k, i, j);
+        }
+        for (int l = Math.max(k + 1, from); l < n; l++)
+        {
+          int[][] pairings = {{i, j, k, l}, {i, k, j, l}, {i, l, j, k}};
+          for (int[] q : pairings)
+            candidate(list, "extension", () -> Geometry.extension(points.get(q[0]), points.get(q[1]), points.get(q[2]), points.get(q[3])), q, q);
+        }
+      }
+    }
+    return list;
+  }
+
+  private void candidate(ArrayList<Candidate> list, String construction, Supplier<Point> build, int[] on, int... inputs) // adds the
+                                                                                        // point built to list, unless the
+                                                                                        // construction is degenerate or the
+                                                                                        // point is at infinity
+  {
+    Point P;
+    try
+    {
+      P = build.get();
+    }
+    catch (IllegalArgumentException e)
+    {
+      return;
+    }
+    double[] s = P.shadow(TRIANGLE);
+    if (!isFinite(s))
+      return;
+    Key key = key(P.sample(0), P.sample(1));
+    if (key == null)
+      return;
+    StringBuilder name = new StringBuilder(construction).append("(");
+    for (int m = 0; m < inputs.length; m++)
+      name.append(m == 0 ? "" : ", ").append(names.get(inputs[m]));
+    list.add(new Candidate(name.append(")").toString(), P, key, on));
+  }
+
+  private void know(int i, int j, int k) // records that the kth point lies on the line through the ith and jth by construction
+  {
+    Key key = lineKey(i, j);
+    if (key == null)
+      return;
+    Set<Integer> on = knownLines.computeIfAbsent(key, line -> new HashSet<Integer>());
+    on.add(i);
+    on.add(j);
+    on.add(k);
+  }
+
+  private void searchCollinear(Consumer<Theorem> report) // reports each line through three points or more not all known to
+                                                         // lie on it
+  {
+    int n = points.size();
+    ConcurrentHashMap<Key, Boolean> claimed = new ConcurrentHashMap<Key, Boolean>();
+    IntStream.range(0, n).parallel().forEach(i ->
+    {
+      for (int j = i + 1; j < n; j++)
+      {
+        ArrayList<Integer> near = new ArrayList<Integer>();
+        for (int k = 0; k < n; k++)
+          if (k != i && k != j && nearlyCollinear(shadows.get(i), shadows.get(j), shadows.get(k)))
+            near.add(k);
+        if (near.isEmpty())
+          continue;
+        Key key = lineKey(i, j);
+        if (key == null || claimed.putIfAbsent(key, true) != null)
+          continue;
+        Point P1 = points.get(i);
+        Point P2 = points.get(j);
+        TreeSet<Integer> on = new TreeSet<Integer>(Arrays.asList(i, j));
+        for (int k : near)
+          if (verify(() -> Geometry.col(P1, P2, points.get(k))))
+            on.add(k);
+        Set<Integer> known = knownLines.getOrDefault(key, Collections.emptySet());
+        if (on.size() >= 3 && !known.containsAll(on))
+          report.accept(theorem("col", on, points, names));
+      }
+    });
+  }
+
+  private void searchConcyclic(Consumer<Theorem> report) // reports each circle through four points or more
+  {
+    int n = points.size();
+    ConcurrentHashMap<Key, Boolean> claimed = new ConcurrentHashMap<Key, Boolean>();
+    IntStream.range(0, n).parallel().forEach(i ->
+    {
+      for (int j = i + 1; j < n; j++)
+        for (int k = j + 1; k < n; k++)
+        {
+          if (nearlyCollinear(shadows.get(i), shadows.get(j), shadows.get(k)))
+            continue;
+          double[] circle = TRIANGLE.circumcircle(shadows.get(i), shadows.get(j), shadows.get(k));
+          ArrayList<Integer> near = new ArrayList<Integer>();
+          for (int l = 0; l < n; l++)
+            if (l != i && l != j && l != k && nearlyOn(circle, shadows.get(l)))
+              near.add(l);
+          if (near.isEmpty())
+            continue;
+          Point P1 = points.get(i);
+          Point P2 = points.get(j);
+          Point P3 = points.get(k);
+          Circle c;
+          try
+          {
+            c = Geometry.circumcircle(P1, P2, P3);
+          }
+          catch (IllegalArgumentException e)
+          {
+            continue;
+          }
+          Key key = key(c.sample(0), c.sample(1));
+          if (key == null || claimed.putIfAbsent(key, true) != null)
+            continue;
+          TreeSet<Integer> on = new TreeSet<Integer>(Arrays.asList(i, j, k));
+          for (int l : near)
+            if (verify(() -> Geometry.cyclic(P1, P2, P3, points.get(l))))
+              on.add(l);
+          if (on.size() >= 4)
+            report.accept(theorem("cyclic", on, points, names));
+        }
+    });
+  }
+
+  private Line[] lines(List<String> lineNames) // returns the distinct lines through two points, at most maxLines of them, in
+                                               // order of their points, adding the name of each to lineNames
+  {
+    ArrayList<Line> lines = new ArrayList<Line>();
+    HashSet<Key> keys = new HashSet<Key>();
+    int n = points.size();
+    for (int i = 0; i < n && lines.size() < maxLines; i++)
+      for (int j = i + 1; j < n && lines.size() < maxLines; j++)
+      {
+        Key key = lineKey(i, j);
+        if (key != null && keys.add(key))
+        {
+          lines.add(new Line(points.get(i), points.get(j)));
+          lineNames.add("line(" + names.get(i) + ", " + names.get(j) + ")");
+        }
+      }
+    return lines.toArray(new Line[0]);
+  }
+
+  private void searchConcurrent(Line[] lines, List<String> lineNames, Consumer<Theorem> report) // reports each point that
+                                                                                 // three lines or more pass through, other
+                                                                                 // than the points found
+  {
+    int n = lines.length;
+    double[][] lineShadows = new double[n][];
+    for (int i = 0; i < n; i++)
+      lineShadows[i] = lines[i].shadow(TRIANGLE);
+    ConcurrentHashMap<Key, Boolean> claimed = new ConcurrentHashMap<Key, Boolean>();
+    List<Line> objects = Arrays.asList(lines);
+    IntStream.range(0, n).parallel().forEach(i ->
+    {
+      for (int j = i + 1; j < n; j++)
+      {
+        ArrayList<Integer> near = new ArrayList<Integer>();
+        for (int k = 0; k < n; k++)
+          if (k != i && k != j && nearlyCollinear(lineShadows[i], lineShadows[j], lineShadows[k]))
+            near.add(k);
+        if (near.isEmpty())
+          continue;
+        Modular field = Modular.sampleField();
+        Key key = key(field.cross(lines[i].sample(0), lines[j].sample(0)), field.cross(lines[i].sample(1), lines[j].sample(1)));
+        if (key == null || index.containsKey(key) || claimed.putIfAbsent(key, true) != null)
+          continue;
+        Line l1 = lines[i];
+        Line l2 = lines[j];
+        TreeSet<Integer> on = new TreeSet<Integer>(Arrays.asList(i, j));
+        for (int k : near)
+          if (verify(() -> Geometry.conc(l1, l2, lines[k])))
+            on.add(k);
+        if (on.size() >= 3)
+          report.accept(theorem("conc", on, objects, lineNames));
+      }
+    });
+  }
+
+  private static Theorem theorem(String predicate, Set<Integer> on, List<?> objects, List<String> names) // returns the theorem
+                                                                                  // that the predicate holds for these objects
+  {
+    Object[] o = new Object[on.size()];
+    String[] s = new String[on.size()];
+    int m = 0;
+    for (int i : on)
+    {
+      o[m] = objects.get(i);
+      s[m++] = names.get(i);
+    }
+    return new Theorem(predicate, o, s);
+  }
+
+  private static boolean verify(BooleanSupplier predicate) // returns whether the predicate holds, false if it is degenerate
+  {
+    try
+    {
+      return predicate.getAsBoolean();
+    }
+    catch (IllegalArgumentException e)
+    {
+      return false;
+    }
+  }
+
+  private static boolean nearlyCollinear(double[] u, double[] v, double[] w) // returns whether three points are collinear or
+                                                                             // three lines concurrent in double precision
+  {
+    return Math.abs(Numeric.det(u, v, w)) <= EPSILON;
+  }
+
+  private static boolean nearlyOn(double[] circle, double[] P) // returns whether a finite point is on a circle in double
+                                                               // precision, relative to its distance from the triangle
+  {
+    double s = P[0] + P[1] + P[2];
+    if (!isFinite(P))
+      return false;
+    return Math.abs(TRIANGLE.power(circle, P)) <= EPSILON * (1 + 1 / (s * s));
+  }
+
+  private static boolean isFinite(double[] P) // returns whether the coordinates are numbers of a point not at infinity
+  {
+    double s = P[0] + P[1] + P[2];
+    return !Double.isNaN(s) && !Double.isInfinite(s) && Math.abs(s) > EPSILON;
+  }
+
+  private Key lineKey(int i, int j) // returns the key of the line through the ith and jth points, null if they are equal
+  {
+    Modular field = Modular.sampleField();
+    Point P = points.get(i);
+    Point Q = points.get(j);
+    return key(field.cross(P.sample(0), Q.sample(0)), field.cross(P.sample(1), Q.sample(1)));
+  }
+
+  private static Key key(long[] s0, long[] s1) // returns the key of an object from its entries at Modular.sample(0) and
+                                               // Modular.sample(1), null if they vanish at either
+  {
+    long[] v = new long[s0.length + s1.length];
+    if (!normalize(s0, v, 0) || !normalize(s1, v, s0.length))
+      return null;
+    return new Key(v);
+  }
+
+  private static boolean normalize(long[] s, long[] v, int offset) // writes the entries s in Montgomery form into v from offset
+                                                                   // in ordinary form, scaled so the first nonzero one is 1,
+                                                                   // returns false if they are all 0
+  {
+    Modular field = Modular.sampleField();
+    int first = 0;
+    while (first < s.length && s[first] == 0)
+      first++;
+    if (first == s.length)
+      return false;
+    long inverse = field.inverse(field.fromMontgomery(s[first]));
+    for (int i = 0; i < s.length; i++)
+      v[offset + i] = field.mulmod(field.fromMontgomery(s[i]), inverse);
+    return true;
+  }
+
+  private static class Key // the normalized entries of an object at two random points, equal only for equal objects
+  {
+    private final long[] v; // the entries
+
+    private Key(long[] v) // sets the entries
+    {
+      this.v = v;
+    }
+
+    public boolean equals(Object o) // returns whether o is a key with the same entries
+    {
+      return o instanceof Key && Arrays.equals(v, ((Key) o).v);
+    }
+
+    public int hashCode() // returns a hash of the entries
+    {
+      return Arrays.hashCode(v);
+    }
+  }
+
+  private static class Candidate // a point constructed in a level, with the lines it is on by construction
+  {
+    private final String name; // the construction and its inputs
+    private final Point point; // the point
+    private final Key key; // the key of the point
+    private final int[] on; // pairs of positions of points, the point being on the line through each pair
+
+    private Candidate(String name, Point point, Key key, int[] on) // sets the fields
+    {
+      this.name = name;
+      this.point = point;
+      this.key = key;
+      this.on = on;
+    }
+  }
+
+  public static class Theorem // a verified statement that a predicate of Geometry holds for some objects
+  {
+    private final String predicate; // "col" for collinear points, "cyclic" for concyclic points, "conc" for concurrent lines
+    private final Object[] objects; // the points or lines, more than the predicate takes when more are on the same line,
+                                    // circle or point
+    private final String[] names; // the names of the objects
+
+    public Theorem(String predicate, Object[] objects, String[] names) // sets the predicate, objects and names
+    {
+      this.predicate = predicate;
+      this.objects = objects;
+      this.names = names;
+    }
+
+    public String getPredicate() // getter for predicate
+    {
+      return predicate;
+    }
+
+    public Object[] getObjects() // getter for objects
+    {
+      return objects.clone();
+    }
+
+    public String[] getNames() // getter for names
+    {
+      return names.clone();
+    }
+
+    public String toString() // returns the predicate applied to the names of the objects
+    {
+      return predicate + "(" + String.join(", ", names) + ")";
+    }
+  }
+}
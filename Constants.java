@@ -0,0 +1,61 @@
+// stores the constant polynomials, vectors, points and lines used by the constructions, built once when the class is loaded
+// so that hot methods do not parse the same Strings on every call, all of them are interned and must not be modified
+
+public class Constants
+{
+  public static final HomogenousPolynomial ONE = poly("1"); // the constant polynomial 1
+  public static final HomogenousPolynomial A2 = poly("a^2"); // a^2
+  public static final HomogenousPolynomial B2 = poly("b^2"); // b^2
+  public static final HomogenousPolynomial C2 = poly("c^2"); // c^2
+  public static final HomogenousPolynomial A2_MINUS_B2 = poly("a^2-b^2"); // a^2-b^2
+  public static final HomogenousPolynomial B2_MINUS_C2 = poly("b^2-c^2"); // b^2-c^2
+  public static final HomogenousPolynomial C2_MINUS_A2 = poly("c^2-a^2"); // c^2-a^2
+  public static final HomogenousPolynomial SQU_SUM = poly("a^2+b^2+c^2"); // a^2+b^2+c^2
+  public static final HomogenousPolynomial SQU_A = poly("-a^2+b^2+c^2"); // b^2+c^2-a^2, proportional to cot A
+  public static final HomogenousPolynomial SQU_B = poly("a^2-b^2+c^2"); // c^2+a^2-b^2, proportional to cot B
+  public static final HomogenousPolynomial SQU_C = poly("a^2+b^2-c^2"); // a^2+b^2-c^2, proportional to cot C
+  public static final HomogenousPolynomial SQU_AB = SQU_A.times(SQU_B).intern(); // (b^2+c^2-a^2)(c^2+a^2-b^2)
+  public static final HomogenousPolynomial SQU_BC = SQU_B.times(SQU_C).intern(); // (c^2+a^2-b^2)(a^2+b^2-c^2)
+  public static final HomogenousPolynomial SQU_CA = SQU_C.times(SQU_A).intern(); // (a^2+b^2-c^2)(b^2+c^2-a^2)
+  public static final HomogenousPolynomial AREA16 = poly("-a^4-b^4-c^4+2a^2b^2+2b^2c^2+2a^2c^2"); // 16 times the squared area
+  public static final HomogenousPolynomial[] AREA16_FACTORS = {poly("a+b+c"), poly("-a+b+c"), poly("a-b+c"), poly("a+b-c")}; // the
+                                                                              // factors of 16 times the squared area, by Heron's formula
+  public static final HomogenousPolynomial RAD_SQU_CONST = SQU_SUM.times(AREA16).minus(SQU_A.times(SQU_BC)).intern(); // the part of the
+                                                                                                                      // squared radius
+                                                                                                                      // numerator not
+                                                                                                                      // involving u, v, w
+  public static final HomogenousPolynomial CENTER_X = poly("-a^4+a^2b^2+a^2c^2"); // a^2(b^2+c^2-a^2)
+  public static final HomogenousPolynomial CENTER_Y = poly("a^2b^2-b^4+b^2c^2"); // b^2(c^2+a^2-b^2)
+  public static final HomogenousPolynomial CENTER_Z = poly("a^2c^2+b^2c^2-c^4"); // c^2(a^2+b^2-c^2)
+
+  public static final HomogenousVector SQU = vector(A2, B2, C2); // (a^2, b^2, c^2)
+  public static final HomogenousVector COT_ANGLES = vector(SQU_A, SQU_B, SQU_C); // (b^2+c^2-a^2, c^2+a^2-b^2, a^2+b^2-c^2)
+  public static final HomogenousVector MEDIAN_X = vector(poly("-2"), poly("1"), poly("1")); // (-2, 1, 1)
+  public static final HomogenousVector MEDIAN_Y = vector(poly("1"), poly("-2"), poly("1")); // (1, -2, 1)
+  public static final HomogenousVector MEDIAN_Z = vector(poly("1"), poly("1"), poly("-2")); // (1, 1, -2)
+  public static final HomogenousVector DIFF_X = vector(poly("0"), poly("1"), poly("-1")); // (0, 1, -1)
+  public static final HomogenousVector DIFF_Y = vector(poly("-1"), poly("0"), poly("1")); // (-1, 0, 1)
+  public static final HomogenousVector DIFF_Z = vector(poly("1"), poly("-1"), poly("0")); // (1, -1, 0)
+
+  public static final Point A = new Point("1", "0", "0"); // the vertex A of the reference triangle
+  public static final Point B = new Point("0", "1", "0"); // the vertex B of the reference triangle
+  public static final Point C = new Point("0", "0", "1"); // the vertex C of the reference triangle
+  public static final Line SIDE_A = new Line("1", "0", "0"); // the side BC of the reference triangle
+  public static final Line SIDE_B = new Line("0", "1", "0"); // the side CA of the reference triangle
+  public static final Line SIDE_C = new Line("0", "0", "1"); // the side AB of the reference triangle
+  public static final Line INF_LINE = new Line("1", "1", "1"); // the line at infinity
+
+  private Constants() // the class only holds constants
+  {
+  }
+
+  private static HomogenousPolynomial poly(String polyString) // parses and interns a constant polynomial
+  {
+    return new HomogenousPolynomial(polyString).intern();
+  }
+
+  private static HomogenousVector vector(HomogenousPolynomial x, HomogenousPolynomial y, HomogenousPolynomial z) // builds a constant vector
+  {
+    return new HomogenousVector(x, y, z);
+  }
+}
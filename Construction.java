@@ -0,0 +1,65 @@
+// represents a node in the graph of geometric constructions: a point, line or circle described by the operation that builds it
+// from its inputs, whose polynomials are only expanded when exact coefficients are asked for
+// its values at the random points Modular.sample(t) and its double precision values in a numeric triangle are computed from
+// those of its inputs, so predicates decided at a random point, hashing and drawing expand nothing, and each sample is computed
+// once per node however many constructions share it
+// the degree is that of the entries before their common factor is cancelled, so it bounds the degree of the expanded entries,
+// which for a circle means the degree of k
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+
+public class Construction<T>
+{
+  public static final int MAX_DEGREE = 1 << 20; // constructions of a higher degree are expanded at once, cancelling their
+                                                // common factors, so that degree bounds stay far below the sample prime and
+                                                // cannot overflow
+
+  private final int degree; // the degree of the entries before cancelling
+  private final Supplier<T> exact; // expands the entries from those of the inputs
+  private final IntFunction<long[]> sample; // gives the entries at Modular.sample(t) from the samples of the inputs
+  private final Function<Numeric, double[]> numeric; // gives the entries in a numeric triangle from the shadows of the inputs
+  private final ArrayList<long[]> samples = new ArrayList<long[]>(); // the samples computed so far, by t
+
+  public Construction(int degree, Supplier<T> exact, IntFunction<long[]> sample, Function<Numeric, double[]> numeric) // sets the
+                                                                                                  // degree and the evaluations
+  {
+    this.degree = degree;
+    this.exact = exact;
+    this.sample = sample;
+    this.numeric = numeric;
+  }
+
+  public int degree() // getter for degree
+  {
+    return degree;
+  }
+
+  public T expand() // returns the entries as exact polynomials, computed from the expanded inputs, throwing a
+                    // CancellationException instead if the thread was interrupted because the result is no longer needed
+  {
+    if (Thread.interrupted())
+      throw new CancellationException("interrupted");
+    return exact.get();
+  }
+
+  public synchronized long[] sample(int t) // returns the entries at the random point Modular.sample(t) in Montgomery form,
+                                           // computed once, not to be modified
+  {
+    while (samples.size() <= t)
+      samples.add(null);
+    long[] v = samples.get(t);
+    if (v == null)
+    {
+      v = sample.apply(t);
+      samples.set(t, v);
+    }
+    return v;
+  }
+
+  public double[] eval(Numeric n) // returns the entries in the triangle n in double precision
+  {
+    return numeric.apply(n);
+  }
+}
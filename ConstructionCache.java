@@ -0,0 +1,142 @@
+// a bounded, thread-safe cache of the results of geometric constructions, keyed on the name of the construction and its inputs
+// points, lines and circles among the inputs are keyed by identity: comparing them by equals would expand their equations, and
+// would do so while holding the lock, so an equal object constructed again misses and is only recomputed lazily
+// once full, the least recently used result is evicted
+
+import java.util.*;
+import java.util.function.*;
+
+public class ConstructionCache
+{
+  private int capacity; // the maximum number of results stored
+  private LinkedHashMap<Key, Object> results; // the stored results in order of last use
+  private long hits; // the number of lookups answered from the cache
+  private long misses; // the number of lookups that had to compute their result
+
+  public ConstructionCache(int capacity) // returns an empty cache storing at most capacity results
+  {
+    if (capacity < 0)
+      throw new IllegalArgumentException("capacity cannot be negative");
+    this.capacity = capacity;
+    results = new LinkedHashMap<Key, Object>(16, 0.75f, true)
+    {
+      static final long serialVersionUID = 42L;
+
+      protected boolean removeEldestEntry(Map.Entry<Key, Object> eldest)
+      {
+        return size() > ConstructionCache.this.capacity;
+      }
+    };
+  }
+
+  @SuppressWarnings("unchecked")
+  public <T> T get(String construction, Supplier<T> compute, Object... inputs) // returns the cached result of the construction
+                                                                               // on the same geometric objects and equal other
+                                                                               // inputs, or computes and stores it, without
+                                                                               // holding the lock while computing
+  {
+    Key key = new Key(construction, inputs);
+    synchronized (this)
+    {
+      Object result = results.get(key);
+      if (result != null)
+      {
+        hits++;
+        return (T) result;
+      }
+      misses++;
+    }
+    T result = compute.get();
+    synchronized (this)
+    {
+      results.put(key, result);
+    }
+    return result;
+  }
+
+  public synchronized long hits() // returns the number of lookups answered from the cache
+  {
+    return hits;
+  }
+
+  public synchronized long misses() // returns the number of lookups that had to compute their result
+  {
+    return misses;
+  }
+
+  public synchronized int size() // returns the number of results stored
+  {
+    return results.size();
+  }
+
+  public synchronized int capacity() // returns the maximum number of results stored
+  {
+    return capacity;
+  }
+
+  public synchronized void setCapacity(int capacity) // changes the maximum number of results stored, evicting the least
+                                                     // recently used results if there are too many, 0 disables the cache
+  {
+    if (capacity < 0)
+      throw new IllegalArgumentException("capacity cannot be negative");
+    this.capacity = capacity;
+    Iterator<Key> it = results.keySet().iterator();
+    while (results.size() > capacity)
+    {
+      it.next();
+      it.remove();
+    }
+  }
+
+  public synchronized void clear() // removes all stored results and resets the counters
+  {
+    results.clear();
+    hits = 0;
+    misses = 0;
+  }
+
+  public synchronized String toString() // returns the size and counters of the cache
+  {
+    return "ConstructionCache[size=" + results.size() + ", capacity=" + capacity + ", hits=" + hits + ", misses=" + misses + "]";
+  }
+
+  private static class Key // the name of a construction and its inputs, comparing points, lines and circles by identity
+  {
+    private final String construction; // the name of the construction
+    private final Object[] inputs; // the inputs of the construction
+    private final int hash; // the hash of the name and inputs
+
+    public Key(String construction, Object[] inputs)
+    {
+      this.construction = construction;
+      this.inputs = inputs.clone();
+      int h = construction.hashCode();
+      for (Object o : inputs)
+        h = 31 * h + (geometric(o) ? System.identityHashCode(o) : Objects.hashCode(o));
+      hash = h;
+    }
+
+    private static boolean geometric(Object o) // returns whether o is compared by identity
+    {
+      return o instanceof Point || o instanceof Line || o instanceof Circle;
+    }
+
+    public boolean equals(Object o)
+    {
+      if (!(o instanceof Key))
+        return false;
+      Key other = (Key) o;
+      if (hash != other.hash || !construction.equals(other.construction) || inputs.length != other.inputs.length)
+        return false;
+      for (int i = 0; i < inputs.length; i++)
+        if (geometric(inputs[i]) ? inputs[i] != other.inputs[i] : !Objects.equals(inputs[i], other.inputs[i]))
+          return false;
+      return true;
+    }
+
+    public int hashCode()
+    {
+      return hash;
+    }
+  }
+}
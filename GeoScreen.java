@@ -1,23 +1,27 @@
 // displays the geometry diagram in a JPanel
 
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.awt.image.*;
 import javax.swing.*;
 
-public class GeoScreen extends JPanel implements MouseListener
+public class GeoScreen extends JPanel implements MouseListener, MouseMotionListener
 {
   static final long serialVersionUID = 42L;
   private int ax = 400, ay = 100, bx = 275, by = 400, cx = 625, cy = 400; // stores coordinates of the triangles
   private Set<screenPoint> points = new HashSet<screenPoint>(); // stores points in the diagram
   private Set<screenLine> lines = new HashSet<screenLine>(); // stores lines in the diagram
   private Set<screenCircle> circles = new HashSet<screenCircle>(); // stores circles in the diagram
-  private static Point A = new Point("1", "0", "0");
-  private static Point B = new Point("0", "1", "0");
-  private static Point C = new Point("0", "0", "1");
-  private static Line a = new Line("1", "0", "0");
-  private static Line b = new Line("0", "1", "0");
-  private static Line c = new Line("0", "0", "1");
+  private static Point A = Constants.A;
+  private static Point B = Constants.B;
+  private static Point C = Constants.C;
+  private static Line a = Constants.SIDE_A;
+  private static Line b = Constants.SIDE_B;
+  private static Line c = Constants.SIDE_C;
   private static int width = 1500;
   private static int height = 1500;
   private int toolState = -1;
@@ -27,19 +31,39 @@ public class GeoScreen extends JPanel implements MouseListener
   private ArrayList<Point> selectedPoints = new ArrayList<Point>();
   private ArrayList<Line> selectedLines = new ArrayList<Line>();
   private ArrayList<Circle> selectedCircles = new ArrayList<Circle>();
+  private Set<Object> selected = new HashSet<Object>(); // stores the selected points, lines and circles, for membership tests
+  private BufferedImage layer = null; // every object drawn in black, null when it must be redrawn
   private ArrayList<tool> tools = new ArrayList<tool>();
+  private Map<Object, node> nodeOf = new HashMap<Object, node>(); // stores the node of each object in the diagram
+  private int dragged = -1; // the vertex being dragged, 0 for A, 1 for B, 2 for C, -1 if none
+  private boolean moved = false; // whether the triangle moved since the objects were last projected onto the screen
+  private SpatialGrid<screenPoint> pointGrid = new SpatialGrid<screenPoint>(width, height, 32); // finds the points near a pixel
+  private SpatialGrid<screenLine> lineGrid = new SpatialGrid<screenLine>(width, height, 32); // finds the lines near a pixel
+  private SpatialGrid<screenCircle> circleGrid = new SpatialGrid<screenCircle>(width, height, 32); // finds the circles near a pixel
+  private boolean indexed = true; // whether the grids hold every object where it is drawn
+  private drawable hovered = null; // what is drawn for the object under the mouse, null if none
+  private ThreadPoolExecutor workers = new ThreadPoolExecutor(Math.max(1, Runtime.getRuntime().availableProcessors() - 1), Math.max(1, Runtime.getRuntime().availableProcessors() - 1), 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(32), r ->
+  {
+    Thread t = new Thread(r, "GeoScreen worker");
+    t.setDaemon(true);
+    return t;
+  }); // applies tools off the event dispatch thread, at most 32 waiting
+  private ArrayList<job> pending = new ArrayList<job>(); // the tools being applied in the background, in order of submission
+  private ConcurrentLinkedQueue<job> done = new ConcurrentLinkedQueue<job>(); // the jobs finished but not yet published
+  private AtomicBoolean publishing = new AtomicBoolean(); // whether a batch of finished jobs is waiting to be published
 
   public GeoScreen(int width, int height)
   {
-    points.add(new screenPoint(A));
-    points.add(new screenPoint(B));
-    points.add(new screenPoint(C));
-    points.add(new screenPoint(new Point("a", "b", "c")));
-    lines.add(new screenLine(a));
-    lines.add(new screenLine(b));
-    lines.add(new screenLine(c));
-    circles.add(new screenCircle(new Circle(A, B, C)));
+    add(A);
+    add(B);
+    add(C);
+    add(new Point("a", "b", "c"));
+    add(a);
+    add(b);
+    add(c);
+    constructNow(in -> new Circle((Point) in[0], (Point) in[1], (Point) in[2]), A, B, C);
     addMouseListener(this);
+    addMouseMotionListener(this);
     for (int i = 0; i < 19; i++)
       tools.add(new tool(i));
   }
@@ -47,33 +71,22 @@ public class GeoScreen extends JPanel implements MouseListener
   public void paintComponent(Graphics g)
   {
     super.paintComponent(g);
-    g.setColor(Color.BLACK);
-
-    for (screenPoint sP : points)
-      if (!selectedPoints.contains(sP.P))
-        g.fillOval(sP.coords[0] - 3, sP.coords[1] - 3, 6, 6);
-
-    for (screenLine sl : lines)
-      if (!selectedPoints.contains(sl.l))
-        g.drawLine(sl.coords[0], sl.coords[1], sl.coords[2], sl.coords[3]);
-
-    for (screenCircle sc : circles)
-      if (!selectedPoints.contains(sc.c))
-        g.drawOval(sc.coords[0] - sc.coords[2], sc.coords[1] - sc.coords[2], 2 * sc.coords[2], 2 * sc.coords[2]);
+    if (moved)
+      project();
+    if (layer == null || layer.getWidth() != Math.max(1, getWidth()) || layer.getHeight() != Math.max(1, getHeight()))
+      drawLayer();
+    g.drawImage(layer, 0, 0, null);
 
     g.setColor(Color.RED);
 
-    for (screenPoint sP : points)
-      if (selectedPoints.contains(sP.P))
-        g.fillOval(sP.coords[0] - 3, sP.coords[1] - 3, 6, 6);
+    for (Object o : selected)
+      if (nodeOf.containsKey(o))
+        nodeOf.get(o).screen.draw(g);
 
-    for (screenLine sl : lines)
-      if (selectedLines.contains(sl.l))
-        g.drawLine(sl.coords[0], sl.coords[1], sl.coords[2], sl.coords[3]);
+    g.setColor(Color.ORANGE);
 
-    for (screenCircle sc : circles)
-      if (selectedCircles.contains(sc.c))
-        g.drawOval(sc.coords[0] - sc.coords[2], sc.coords[1] - sc.coords[2], 2 * sc.coords[2], 2 * sc.coords[2]);
+    if (hovered != null)
+      hovered.draw(g);
 
     g.setColor(Color.BLUE);
     g.fillRect(0, 0, 90, 30);
@@ -81,6 +94,12 @@ public class GeoScreen extends JPanel implements MouseListener
     g.setFont(new Font("TimesRoman", Font.BOLD, 20));
     g.drawString("ENTER", 10, 20);
 
+    if (!pending.isEmpty())
+    {
+      g.setColor(Color.GRAY);
+      g.drawString("computing " + pending.size(), 100, 20);
+    }
+
     for (int i = 0; i < tools.size(); i++)
     {
       g.setColor(Color.WHITE);
@@ -100,36 +119,233 @@ public class GeoScreen extends JPanel implements MouseListener
     selectedPoints = new ArrayList<Point>();
     selectedLines = new ArrayList<Line>();
     selectedCircles = new ArrayList<Circle>();
+    selected.clear();
+  }
+
+  private void drawLayer() // draws every object in black over the background on an image the size of the panel
+  {
+    layer = new BufferedImage(Math.max(1, getWidth()), Math.max(1, getHeight()), BufferedImage.TYPE_INT_RGB);
+    Graphics2D g = layer.createGraphics();
+    g.setColor(getBackground());
+    g.fillRect(0, 0, layer.getWidth(), layer.getHeight());
+    g.setColor(Color.BLACK);
+    for (screenPoint sP : points)
+      sP.draw(g);
+    for (screenLine sl : lines)
+      sl.draw(g);
+    for (screenCircle sc : circles)
+      sc.draw(g);
+    g.dispose();
+  }
+
+  public void add(Point P) // adds a point given without inputs
+  {
+    add(new node(P));
+  }
+
+  public void add(Line l) // adds a line given without inputs
+  {
+    add(new node(l));
+  }
+
+  public void add(Circle c) // adds a circle given without inputs
+  {
+    add(new node(c));
+  }
+
+  public void remove(Point P) // removes a point and everything constructed from it
+  {
+    remove((Object) P);
+  }
+
+  public void remove(Line l) // removes a line and everything constructed from it
+  {
+    remove((Object) l);
+  }
+
+  public void remove(Circle c) // removes a circle and everything constructed from it
+  {
+    remove((Object) c);
+  }
+
+  private void construct(Function<Object[], Object> rule, Object... inputs) // builds the object from the inputs in the
+                                                                            // background, with its shadow in the current
+                                                                            // triangle, and adds it when done unless an
+                                                                            // input was removed meanwhile
+  {
+    node[] in = new node[inputs.length];
+    for (int i = 0; i < inputs.length; i++)
+      in[i] = nodeOf.get(inputs[i]);
+    Numeric n = Numeric.of(ax, ay, bx, by, cx, cy);
+    submit(() ->
+    {
+      Object o = rule.apply(inputs);
+      if (o instanceof Point)
+        ((Point) o).shadow(n);
+      else if (o instanceof Line)
+        ((Line) o).shadow(n);
+      else if (o instanceof Circle)
+        ((Circle) o).shadow(n);
+      return () ->
+      {
+        for (int i = 0; i < inputs.length; i++)
+          if (nodeOf.get(inputs[i]) != in[i])
+            return;
+        add(new node(o, in));
+      };
+    });
+  }
+
+  private void constructNow(Function<Object[], Object> rule, Object... inputs) // adds the object built by rule from the
+                                                                               // inputs, which must be in the diagram
+  {
+    node[] in = new node[inputs.length];
+    for (int i = 0; i < inputs.length; i++)
+      in[i] = nodeOf.get(inputs[i]);
+    add(new node(rule.apply(inputs), in));
   }
 
-  public void add(Point P)
+  private void check(Predicate<Object[]> predicate, Object... inputs) // decides the predicate on the inputs in the background
+                                                                     // and prints the answer when done
   {
-    points.add(new screenPoint(P));
+    submit(() ->
+    {
+      boolean answer = predicate.test(inputs);
+      return () -> System.out.println(answer);
+    });
   }
 
-  public void add(Line l)
+  private void submit(Supplier<Runnable> task) // runs task on a worker, then what it returns on the event dispatch thread,
+                                               // together with the other jobs finished by then, unless it was cancelled
+                                               // errors are reported on System.err, apart from the answers of checks
   {
-    lines.add(new screenLine(l));
+    job j = new job();
+    pending.add(j);
+    try
+    {
+      j.future = workers.submit(() ->
+      {
+        try
+        {
+          j.result = task.get();
+        }
+        catch (Throwable e) // including the errors of deep or huge constructions, so that the job is still published
+        {
+          j.result = () -> e.printStackTrace();
+        }
+        done.add(j);
+        if (publishing.compareAndSet(false, true))
+          SwingUtilities.invokeLater(this::publish);
+      });
+    }
+    catch (RejectedExecutionException e)
+    {
+      pending.remove(j);
+      System.err.println("too many constructions pending");
+    }
   }
 
-  public void add(Circle c)
+  private void publish() // applies the results of the jobs finished since the last batch, then repaints once
   {
-    circles.add(new screenCircle(c));
+    publishing.set(false);
+    job j;
+    while ((j = done.poll()) != null)
+      if (pending.remove(j))
+        j.result.run();
+    repaint();
   }
 
-  public void remove(Point P)
+  public void cancel() // cancels the tools being applied in the background, interrupting those running so that they stop at
+                       // the next expansion or modular step, and frees the queue of those waiting
   {
-    points.remove(new screenPoint(P));
+    for (job j : pending)
+      if (j.future != null)
+        j.future.cancel(true);
+    pending.clear();
+    workers.purge();
+    repaint();
   }
 
-  public void remove(Line l)
+  private void add(node n) // adds the object of a new node, unless the diagram already has it
   {
-    lines.remove(new screenLine(l));
+    if (nodeOf.containsKey(n.object))
+      return;
+    nodeOf.put(n.object, n);
+    for (node i : n.inputs)
+      i.dependents.add(n);
+    show(n);
   }
 
-  public void remove(Circle c)
+  private void remove(Object o) // removes o and everything constructed from it
   {
-    circles.remove(new screenCircle(c));
+    node n = nodeOf.get(o);
+    if (n == null)
+      return;
+    for (node d : downstream(n))
+    {
+      hide(d);
+      nodeOf.remove(d.object);
+      for (node i : d.inputs)
+        i.dependents.remove(d);
+    }
+  }
+
+  private Set<node> downstream(node n) // returns n and every node constructed from it
+  {
+    Set<node> found = new HashSet<node>();
+    ArrayDeque<node> stack = new ArrayDeque<node>();
+    stack.push(n);
+    found.add(n);
+    while (!stack.isEmpty())
+      for (node d : stack.pop().dependents)
+        if (found.add(d))
+          stack.push(d);
+    return found;
+  }
+
+  private void show(node n) // draws the object of n
+  {
+    layer = null;
+    if (n.object instanceof Point)
+    {
+      screenPoint sP = new screenPoint((Point) n.object);
+      points.add(sP);
+      if (indexed)
+        sP.index();
+      n.screen = sP;
+    }
+    else if (n.object instanceof Line)
+    {
+      screenLine sl = new screenLine((Line) n.object);
+      lines.add(sl);
+      if (indexed)
+        sl.index();
+      n.screen = sl;
+    }
+    else if (n.object instanceof Circle)
+    {
+      screenCircle sc = new screenCircle((Circle) n.object);
+      circles.add(sc);
+      if (indexed)
+        sc.index();
+      n.screen = sc;
+    }
+  }
+
+  private void hide(node n) // stops drawing the object of n
+  {
+    layer = null;
+    points.remove(n.screen);
+    lines.remove(n.screen);
+    circles.remove(n.screen);
+    if (n.screen instanceof screenPoint)
+      pointGrid.remove((screenPoint) n.screen);
+    else if (n.screen instanceof screenLine)
+      lineGrid.remove((screenLine) n.screen);
+    else if (n.screen instanceof screenCircle)
+      circleGrid.remove((screenCircle) n.screen);
+    if (hovered != null && hovered.equals(n.screen))
+      hovered = null;
   }
 
   public void mouseExited(MouseEvent e)
@@ -144,12 +360,99 @@ public class GeoScreen extends JPanel implements MouseListener
 
   public void mouseReleased(MouseEvent e)
   {
+    dragged = -1;
+  }
 
+  public void mousePressed(MouseEvent e) // starts dragging a vertex of the triangle pressed on
+  {
+    int x = e.getX();
+    int y = e.getY();
+    if (x <= 90)
+      return;
+    int[] vertices = {ax, ay, bx, by, cx, cy};
+    for (int i = 0; i < 3; i++)
+      if ((x - vertices[2 * i]) * (x - vertices[2 * i]) + (y - vertices[2 * i + 1]) * (y - vertices[2 * i + 1]) < 20)
+        dragged = i;
   }
 
-  public void mousePressed(MouseEvent e)
+  public void mouseDragged(MouseEvent e) // moves the vertex being dragged, unless the triangle would become degenerate
   {
+    if (dragged < 0)
+      return;
+    int[] vertices = {ax, ay, bx, by, cx, cy};
+    vertices[2 * dragged] = e.getX();
+    vertices[2 * dragged + 1] = e.getY();
+    long area = (long) (vertices[2] - vertices[0]) * (vertices[5] - vertices[1]) - (long) (vertices[3] - vertices[1]) * (vertices[4] - vertices[0]);
+    if (area == 0)
+      return;
+    ax = vertices[0];
+    ay = vertices[1];
+    bx = vertices[2];
+    by = vertices[3];
+    cx = vertices[4];
+    cy = vertices[5];
+    moved = true;
+    repaint();
+  }
+
+  public void mouseMoved(MouseEvent e) // highlights the object under the mouse
+  {
+    drawable d = hit(e.getX(), e.getY());
+    if (d != hovered)
+    {
+      if (hovered != null)
+        repaint(hovered.bounds());
+      if (d != null)
+        repaint(d.bounds());
+      hovered = d;
+    }
+  }
+
+  public void project() // recomputes where every object is drawn for the current triangle, from the double precision shadows
+                        // of the objects, which are rebuilt once per triangle from those of their inputs
+  {
+    for (screenPoint sP : points)
+      sP.project();
+    for (screenLine sl : lines)
+      sl.project();
+    for (screenCircle sc : circles)
+      sc.project();
+    moved = false;
+    indexed = false;
+    layer = null;
+  }
 
+  private void index() // puts every object in the grids where it is drawn, if the triangle moved since they were filled
+  {
+    if (indexed)
+      return;
+    pointGrid.clear();
+    lineGrid.clear();
+    circleGrid.clear();
+    for (screenPoint sP : points)
+      sP.index();
+    for (screenLine sl : lines)
+      sl.index();
+    for (screenCircle sc : circles)
+      sc.index();
+    indexed = true;
+  }
+
+  private drawable hit(int x, int y) // returns what is drawn for the point, else the line, else the circle at (x, y), null if none
+  {
+    if (x <= 90)
+      return null;
+    index();
+    for (screenPoint sP : pointGrid.at(x, y))
+      if (sP.click(x, y))
+        return sP;
+    for (screenLine sl : lineGrid.at(x, y))
+      if (sl.click(x, y))
+        return sl;
+    for (screenCircle sc : circleGrid.at(x, y))
+      if (sc.click(x, y))
+        return sc;
+    return null;
   }
 
   public void mouseClicked(MouseEvent e)
@@ -167,35 +470,35 @@ public class GeoScreen extends JPanel implements MouseListener
         if (tools.get(toolState).numPoint == selectedPoints.size() && tools.get(toolState).numLine == selectedLines.size() && tools.get(toolState).numCircle == selectedCircles.size())
         {
           if (toolState == 0)
-            add(new Line(selectedPoints.get(0), selectedPoints.get(1)));
+            construct(in -> new Line((Point) in[0], (Point) in[1]), selectedPoints.get(0), selectedPoints.get(1));
           if (toolState == 1)
-            add(new Point(selectedLines.get(0), selectedLines.get(1)));
+            construct(in -> new Point((Line) in[0], (Line) in[1]), selectedLines.get(0), selectedLines.get(1));
           if (toolState == 2)
-            add(new Circle(selectedPoints.get(0), selectedPoints.get(1), selectedPoints.get(2)));
+            construct(in -> new Circle((Point) in[0], (Point) in[1], (Point) in[2]), selectedPoints.get(0), selectedPoints.get(1), selectedPoints.get(2));
           if (toolState == 3)
-            add(Geometry.midpoint(selectedPoints.get(0), selectedPoints.get(1)));
+            construct(in -> Geometry.midpoint((Point) in[0], (Point) in[1]), selectedPoints.get(0), selectedPoints.get(1));
           if (toolState == 4)
-            add(Geometry.reflect(selectedPoints.get(0), selectedPoints.get(1)));
+            construct(in -> Geometry.reflect((Point) in[0], (Point) in[1]), selectedPoints.get(0), selectedPoints.get(1));
           if (toolState == 5)
-            add(Geometry.perp(selectedPoints.get(0), selectedLines.get(0)));
+            construct(in -> Geometry.perp((Point) in[0], (Line) in[1]), selectedPoints.get(0), selectedLines.get(0));
           if (toolState == 6)
-            add(Geometry.parallel(selectedPoints.get(0), selectedLines.get(0)));
+            construct(in -> Geometry.parallel((Point) in[0], (Line) in[1]), selectedPoints.get(0), selectedLines.get(0));
           if (toolState == 7)
-            add(Geometry.radAxis(selectedCircles.get(0), selectedCircles.get(1)));
+            construct(in -> Geometry.radAxis((Circle) in[0], (Circle) in[1]), selectedCircles.get(0), selectedCircles.get(1));
           if (toolState == 8)
-            add(selectedCircles.get(0).center());
+            construct(in -> ((Circle) in[0]).center(), selectedCircles.get(0));
           if (toolState == 9)
-            add(Geometry.secondInt(selectedLines.get(0), selectedCircles.get(0), selectedPoints.get(0)));
+            construct(in -> Geometry.secondInt((Line) in[0], (Circle) in[1], (Point) in[2]), selectedLines.get(0), selectedCircles.get(0), selectedPoints.get(0));
           if (toolState == 10)
-            add(Geometry.secondInt(selectedCircles.get(0), selectedCircles.get(1), selectedPoints.get(0)));
+            construct(in -> Geometry.secondInt((Circle) in[0], (Circle) in[1], (Point) in[2]), selectedCircles.get(0), selectedCircles.get(1), selectedPoints.get(0));
           if (toolState == 11)
-            add(Geometry.tangentLine(selectedPoints.get(0), selectedCircles.get(0)));
+            construct(in -> Geometry.tangentLine((Point) in[0], (Circle) in[1]), selectedPoints.get(0), selectedCircles.get(0));
           if (toolState == 12)
-            System.out.println(selectedPoints.get(0).on(selectedLines.get(0)));
+            check(in -> ((Point) in[0]).on((Line) in[1]), selectedPoints.get(0), selectedLines.get(0));
           if (toolState == 13)
-            System.out.println(selectedPoints.get(0).on(selectedCircles.get(0)));
+            check(in -> ((Point) in[0]).on((Circle) in[1]), selectedPoints.get(0), selectedCircles.get(0));
           if (toolState == 14)
-            System.out.println(selectedLines.get(0).isTangent(selectedCircles.get(0)));
+            check(in -> ((Line) in[0]).isTangent((Circle) in[1]), selectedLines.get(0), selectedCircles.get(0));
           if (toolState == 15)
             remove(selectedPoints.get(0));
           if (toolState == 16)
@@ -203,7 +506,7 @@ public class GeoScreen extends JPanel implements MouseListener
           if (toolState == 17)
             remove(selectedCircles.get(0));
           if (toolState == 18)
-            add(new Circle(selectedPoints.get(0), selectedPoints.get(1)));
+            construct(in -> new Circle((Point) in[0], (Point) in[1]), selectedPoints.get(0), selectedPoints.get(1));
           reset();
           repaint();
         }
@@ -214,6 +517,8 @@ public class GeoScreen extends JPanel implements MouseListener
         for (int i = 0; i < tools.size(); i++)
           if (tools.get(i).boxTop <= y && y <= tools.get(i).boxBottom)
           {
+            if (toolState != i)
+              cancel();
             toolState = i;
             reset();
             repaint();
@@ -225,23 +530,23 @@ public class GeoScreen extends JPanel implements MouseListener
     if (toolState < 0)
       return;
 
-    Point P = clickPoint(x, y);
-    Line l = clickLine(x, y);
-    Circle c = clickCircle(x, y);
+    drawable d = hit(x, y);
 
-    if (P != null)
-      tools.get(toolState).click(P);
-    else if (l != null)
-      tools.get(toolState).click(l);
-    else if (c != null)
-      tools.get(toolState).click(c);
+    if (d instanceof screenPoint)
+      tools.get(toolState).click(((screenPoint) d).P);
+    else if (d instanceof screenLine)
+      tools.get(toolState).click(((screenLine) d).l);
+    else if (d instanceof screenCircle)
+      tools.get(toolState).click(((screenCircle) d).c);
 
-    repaint();
+    if (d != null)
+      repaint(d.bounds());
   }
 
   public Point clickPoint(int x, int y)
   {
-    for (screenPoint sP : points)
+    index();
+    for (screenPoint sP : pointGrid.at(x, y))
       if (sP.click(x, y))
         return sP.P;
     return null;
@@ -249,7 +554,8 @@ public class GeoScreen extends JPanel implements MouseListener
 
   public Line clickLine(int x, int y)
   {
-    for (screenLine sl : lines)
+    index();
+    for (screenLine sl : lineGrid.at(x, y))
       if (sl.click(x, y))
         return sl.l;
     return null;
@@ -257,13 +563,31 @@ public class GeoScreen extends JPanel implements MouseListener
 
   public Circle clickCircle(int x, int y)
   {
-    for (screenCircle sc : circles)
+    index();
+    for (screenCircle sc : circleGrid.at(x, y))
       if (sc.click(x, y))
         return sc.c;
     return null;
   }
 
-  protected class screenPoint
+  protected interface drawable // what is drawn for an object
+  {
+    void draw(Graphics g); // draws the object in the current color of g
+
+    Rectangle bounds(); // returns the region of the screen the object is drawn in
+  }
+
+  private static Rectangle region(long x1, long y1, long x2, long y2) // returns the region between two corners, with a margin of
+                                                                       // 2, clipped to the screen
+  {
+    long left = Math.max(0, Math.min(x1, x2) - 2);
+    long top = Math.max(0, Math.min(y1, y2) - 2);
+    long right = Math.min(width, Math.max(x1, x2) + 2);
+    long bottom = Math.min(height, Math.max(y1, y2) + 2);
+    return new Rectangle((int) left, (int) top, (int) Math.max(0, right - left), (int) Math.max(0, bottom - top));
+  }
+
+  protected class screenPoint implements drawable
   {
     private Point P;
     private int[] coords;
@@ -271,9 +595,29 @@ public class GeoScreen extends JPanel implements MouseListener
     public screenPoint(Point P)
     {
       this.P = P;
+      project();
+    }
+
+    public void project()
+    {
       coords = P.screenCoords(ax, ay, bx, by, cx, cy);
     }
 
+    public void index() // stores the point in the grid around the pixels where it can be clicked
+    {
+      pointGrid.addBox(this, coords[0] - 5, coords[1] - 5, coords[0] + 5, coords[1] + 5);
+    }
+
+    public void draw(Graphics g)
+    {
+      g.fillOval(coords[0] - 3, coords[1] - 3, 6, 6);
+    }
+
+    public Rectangle bounds()
+    {
+      return region(coords[0] - 3, coords[1] - 3, coords[0] + 3, coords[1] + 3);
+    }
+
     public boolean click(int x, int y)
     {
       return (x - coords[0]) * (x - coords[0]) + (y - coords[1]) * (y - coords[1]) < 20;
@@ -303,7 +647,7 @@ public class GeoScreen extends JPanel implements MouseListener
     }
   }
 
-  protected class screenLine
+  protected class screenLine implements drawable
   {
     private Line l;
     private int[] coords;
@@ -311,9 +655,31 @@ public class GeoScreen extends JPanel implements MouseListener
     public screenLine(Line l)
     {
       this.l = l;
+      project();
+    }
+
+    public void project()
+    {
       coords = l.screenCoords(ax, ay, bx, by, cx, cy, width, height);
     }
 
+    public void index() // stores the line in the grid around the pixels where it can be clicked, the ellipse with foci its ends
+                        // whose distances to them sum to at most its length plus 1
+    {
+      double length = Math.hypot(coords[0] - coords[2], coords[1] - coords[3]);
+      lineGrid.addSegment(this, coords[0], coords[1], coords[2], coords[3], Math.sqrt(2 * length + 1) / 2 + 1);
+    }
+
+    public void draw(Graphics g)
+    {
+      g.drawLine(coords[0], coords[1], coords[2], coords[3]);
+    }
+
+    public Rectangle bounds()
+    {
+      return region(coords[0], coords[1], coords[2], coords[3]);
+    }
+
     public boolean click(int x, int y)
     {
       int d = (coords[0] - coords[2]) * (coords[0] - coords[2]) + (coords[1] - coords[3]) * (coords[1] - coords[3]);
@@ -346,7 +712,7 @@ public class GeoScreen extends JPanel implements MouseListener
     }
   }
 
-  protected class screenCircle
+  protected class screenCircle implements drawable
   {
     private Circle c;
     private int[] coords;
@@ -354,9 +720,29 @@ public class GeoScreen extends JPanel implements MouseListener
     public screenCircle(Circle c)
     {
       this.c = c;
+      project();
+    }
+
+    public void project()
+    {
       coords = c.screenCoords(ax, ay, bx, by, cx, cy);
     }
 
+    public void index() // stores the circle in the grid around the pixels where it can be clicked
+    {
+      circleGrid.addRing(this, coords[0], coords[1], coords[2], 4);
+    }
+
+    public void draw(Graphics g)
+    {
+      g.drawOval(coords[0] - coords[2], coords[1] - coords[2], 2 * coords[2], 2 * coords[2]);
+    }
+
+    public Rectangle bounds()
+    {
+      return region((long) coords[0] - coords[2], (long) coords[1] - coords[2], (long) coords[0] + coords[2], (long) coords[1] + coords[2]);
+    }
+
     public boolean click(int x, int y)
     {
       int d2 = (x - coords[0]) * (x - coords[0]) + (y - coords[1]) * (y - coords[1]);
@@ -387,6 +773,33 @@ public class GeoScreen extends JPanel implements MouseListener
     }
   }
 
+  protected class job // a tool being applied on a worker
+  {
+    private volatile Future<?> future; // the computation, null until submitted
+    private volatile Runnable result; // what to do on the event dispatch thread with the result, null until done
+  }
+
+  protected class node // an object in the diagram, with the objects it was constructed from and those constructed from it, so
+                       // that removing it removes what depends on it, while moving the triangle needs no graph since the
+                       // shadow of every object is rebuilt from those of its inputs by its construction
+  {
+    private final Object object; // the point, line or circle
+    private node[] inputs; // the nodes of the objects it was built from
+    private ArrayList<node> dependents = new ArrayList<node>(); // the nodes built from it
+    private drawable screen; // what is drawn for the object
+
+    public node(Object object) // a node for an object given without inputs
+    {
+      this(object, new node[0]);
+    }
+
+    public node(Object object, node[] inputs) // a node for an object built from inputs
+    {
+      this.object = object;
+      this.inputs = inputs;
+    }
+  }
+
   protected class tool
   {
     private int id;
@@ -538,25 +951,25 @@ public class GeoScreen extends JPanel implements MouseListener
 
     public void click(Point P)
     {
-      if (selectedPoints.contains(P))
-        selectedPoints.remove(selectedPoints.indexOf(P));
-      else if (selectedPoints.size() < numPoint)
+      if (selected.remove(P))
+        selectedPoints.remove(P);
+      else if (selectedPoints.size() < numPoint && selected.add(P))
         selectedPoints.add(P);
     }
 
     public void click(Line l)
     {
-      if (selectedLines.contains(l))
-        selectedLines.remove(selectedLines.indexOf(l));
-      else if (selectedLines.size() < numLine)
+      if (selected.remove(l))
+        selectedLines.remove(l);
+      else if (selectedLines.size() < numLine && selected.add(l))
         selectedLines.add(l);
     }
 
     public void click(Circle c)
     {
-      if (selectedCircles.contains(c))
-        selectedCircles.remove(selectedCircles.indexOf(c));
-      else if (selectedCircles.size() < numCircle)
+      if (selected.remove(c))
+        selectedCircles.remove(c);
+      else if (selectedCircles.size() < numCircle && selected.add(c))
         selectedCircles.add(c);
     }
   }
@@ -1,17 +1,33 @@
 // static class with useful methods for geometric constructions
 
 import java.math.*;
+import java.util.function.*;
 
 public class Geometry
 {
-  public static final Line INF_LINE = new Line("1", "1", "1"); // static final variable storing the line at infinity
+  public static final ConstructionCache CACHE = new ConstructionCache(1024); // stores recently constructed objects so that
+                                                                              // repeated constructions on the same inputs are
+                                                                              // not recomputed
+  public static final Line INF_LINE = Constants.INF_LINE; // static final variable storing the line at infinity
 
   public static Point average(Point P1, Point P2, int w1, int w2) // returns the weighted average Q of two points
                                                                   // such that QP1 : QP2 = w1 : w2 (distances directed)
   {
-    HomogenousVector v = P1.getCoords().times(new BigInteger(w1 + "")).times(P2.weight()).plus(P2.getCoords().times(new BigInteger(-w2 + "")).times(P1.weight()));
-    v.reduce();
-    return new Point(v);
+    return CACHE.get("average", () -> new Point(new Construction<HomogenousVector>(P1.degree() + P2.degree(), () -> P1.getCoords().times(new BigInteger(w1 + "")).times(P2.weight()).plus(P2.getCoords().times(new BigInteger(-w2 + "")).times(P1.weight())), t -> averageSample(P1, P2, w1, w2, t), n -> n.average(P1.shadow(n), P2.shadow(n), w1, w2))), P1, P2, w1, w2);
+  }
+
+  private static long[] averageSample(Point P1, Point P2, int w1, int w2, int t) // returns the weighted average of P1 and P2 at
+                                                                                 // the random point Modular.sample(t)
+  {
+    Modular field = Modular.sampleField();
+    long[] v1 = P1.sample(t);
+    long[] v2 = P2.sample(t);
+    long c1 = field.mul(field.toMontgomery(w1), field.add(field.add(v2[0], v2[1]), v2[2]));
+    long c2 = field.mul(field.toMontgomery(w2), field.add(field.add(v1[0], v1[1]), v1[2]));
+    long[] v = new long[3];
+    for (int i = 0; i < 3; i++)
+      v[i] = field.sub(field.mul(c1, v1[i]), field.mul(c2, v2[i]));
+    return v;
   }
 
   public static Point midpoint(Point P1, Point P2) // returns the midpoint of P1 and P2
@@ -27,16 +43,22 @@ public class Geometry
   public static Point polyAverage(Point P1, Point P2, HomogenousPolynomial w1, HomogenousPolynomial w2) // returns the weighted average of
                                                                                                         // the points by two polynomials
   {
-    HomogenousVector v = P1.getCoords().times(w1).plus(P2.getCoords().times(w2.times(new BigInteger("-1"))));
-    v.reduce();
-    return new Point(v);
+    return CACHE.get("polyAverage", () ->
+    {
+      HomogenousVector v = P1.getCoords().times(w1).plus(P2.getCoords().times(w2.times(new BigInteger("-1"))));
+      v.reduce();
+      return new Point(v);
+    }, P1, P2, w1, w2);
   }
 
   public static Point infPoint(Line l) // returns the infinity point on l, i.e. the intersection of l with the line at infinity
   {
-    if (l.equals(INF_LINE))
-      throw new IllegalArgumentException("line cannot be line at infinity");
-    return new Point(l, INF_LINE);
+    return CACHE.get("infPoint", () ->
+    {
+      if (l.equals(INF_LINE))
+        throw new IllegalArgumentException("line cannot be line at infinity");
+      return new Point(l, INF_LINE);
+    }, l);
   }
 
   public static Line parallel(Point P, Line l) // returns the parallel to l through P
@@ -47,14 +69,25 @@ public class Geometry
   public static Point perpInfPoint(Line l) // returns the infinity point perpendicular to l, i.e. the intersection
                                            // of a perpendicular to l with the line at infinity using a given formula
   {
-    Point infPoint = infPoint(l);
-    HomogenousVector cotAngles = new HomogenousVector("b^2+c^2-a^2", "c^2+a^2-b^2", "a^2+b^2-c^2");
-    return new Point(INF_LINE, new Line(cotAngles.times(infPoint.getCoords())));
+    return CACHE.get("perpInfPoint", () ->
+    {
+      Point infPoint = infPoint(l);
+      return new Point(new Construction<HomogenousVector>(infPoint.degree() + 2, () -> INF_LINE.getCoeffs().cross(Constants.COT_ANGLES.times(infPoint.getCoords())), t -> perpInfPointSample(infPoint, t), n -> n.perpInfPoint(l.shadow(n))));
+    }, l);
+  }
+
+  private static long[] perpInfPointSample(Point infPoint, int t) // returns the infinity point perpendicular to the direction
+                                                                  // infPoint at the random point Modular.sample(t)
+  {
+    Modular field = Modular.sampleField();
+    long[] inf = infPoint.sample(t);
+    long[] cot = Constants.COT_ANGLES.sample(t);
+    return field.cross(INF_LINE.sample(t), new long[] {field.mul(cot[0], inf[0]), field.mul(cot[1], inf[1]), field.mul(cot[2], inf[2])});
   }
 
   public static Line perp(Point P, Line l) // returns the perpendicular to l through P
   {
-    return new Line(P, perpInfPoint(l));
+    return CACHE.get("perp", () -> new Line(P, perpInfPoint(l)), P, l);
   }
 
   public static Line perp(Point P, Point P1, Point P2) // returns the perpendicular to the line through P1 and P2 through P
@@ -66,9 +99,12 @@ public class Geometry
 
   public static Point foot(Point P, Line l) // returns the foot from P to l
   {
-    if (P.on(l))
-      return P;
-    return new Point(l, perp(P, l));
+    return CACHE.get("foot", () ->
+    {
+      if (P.on(l))
+        return P;
+      return new Point(l, perp(P, l));
+    }, P, l);
   }
 
   public static Point foot(Point P, Point P1, Point P2) // returns the foot from P to the line through P1 and P2
@@ -80,7 +116,7 @@ public class Geometry
 
   public static Point reflect(Point P, Line l) // returns the reflection of P over l
   {
-    return reflect(P, foot(P, l));
+    return CACHE.get("reflect", () -> reflect(P, foot(P, l)), P, l);
   }
 
   public static boolean parallel(Line l1, Line l2) // returns whether l1 and l2 are parallel, i.e. intersect on the line at infinity
@@ -92,21 +128,32 @@ public class Geometry
 
   public static boolean perp(Line l1, Line l2) // returns whether l1 and l2 are perpendicular
   {
-    return parallel(perp(new Point("1", "0", "0"), l1), l2);
+    return parallel(perp(Constants.A, l1), l2);
   }
 
   public static boolean col(Point P1, Point P2, Point P3) // returns whether P1, P2, and P3 are collinear
   {
-    if (P1.equals(P2) || P2.equals(P3) || P3.equals(P1))
-      return true;
-    return P1.on(new Line(P2, P3));
+    Modular sampleField = Modular.sampleField();
+    return Modular.sampleZero(P1.degree() + P2.degree() + P3.degree(), t -> sampleField.det(P1.sample(t), P2.sample(t), P3.sample(t)), () ->
+    {
+      if (P1.equals(P2) || P2.equals(P3) || P3.equals(P1))
+        return true;
+      HomogenousVector v1 = P1.getCoords();
+      HomogenousVector v2 = P2.getCoords();
+      HomogenousVector v3 = P3.getCoords();
+      return Modular.isZero(field -> ModularPolynomial.det(v1.mod(field), v2.mod(field), v3.mod(field)), () -> P1.on(new Line(P2, P3)));
+    });
   }
 
   public static boolean conc(Line l1, Line l2, Line l3) // returns whether l1, l2, and l3 are concurrent
   {
-    if (l1.equals(l2) || l2.equals(l3) || l3.equals(l1))
-      return true;
-    return l1.contains(new Point(l2, l3));
+    Modular field = Modular.sampleField();
+    return Modular.sampleZero(l1.degree() + l2.degree() + l3.degree(), t -> field.det(l1.sample(t), l2.sample(t), l3.sample(t)), () ->
+    {
+      if (l1.equals(l2) || l2.equals(l3) || l3.equals(l1))
+        return true;
+      return l1.contains(new Point(l2, l3));
+    });
   }
 
   public static Line perpBisector(Point P1, Point P2) // returns the perpendicular bisector of P1 and P2
@@ -116,30 +163,39 @@ public class Geometry
 
   public static Point centroid(Point P1, Point P2, Point P3) // returns the centroid of triangle P1P2P3
   {
-    return average(P1, midpoint(P2, P3), -1, 2);
+    return CACHE.get("centroid", () -> average(P1, midpoint(P2, P3), -1, 2), P1, P2, P3);
   }
 
   public static Point circumcenter(Point P1, Point P2, Point P3) // returns the circumcenter of triangle P1P2P3
   {
-    if (P1.equals(P2) || P2.equals(P3) || P3.equals(P1))
-      throw new IllegalArgumentException("points must be distinct");
-    return new Point(perpBisector(P1, P2), perpBisector(P1, P3));
+    return CACHE.get("circumcenter", () ->
+    {
+      if (P1.equals(P2) || P2.equals(P3) || P3.equals(P1))
+        throw new IllegalArgumentException("points must be distinct");
+      return new Point(perpBisector(P1, P2), perpBisector(P1, P3));
+    }, P1, P2, P3);
   }
 
   public static Point orthocenter(Point P1, Point P2, Point P3) // returns the orthocenter of triangle P1P2P3
   {
-    if (P1.equals(P2) || P2.equals(P3) || P3.equals(P1))
-      throw new IllegalArgumentException("points must be distinct");
-    return new Point(perp(P2, new Line(P1, P3)), perp(P3, new Line(P1, P2)));
+    return CACHE.get("orthocenter", () ->
+    {
+      if (P1.equals(P2) || P2.equals(P3) || P3.equals(P1))
+        throw new IllegalArgumentException("points must be distinct");
+      return new Point(perp(P2, new Line(P1, P3)), perp(P3, new Line(P1, P2)));
+    }, P1, P2, P3);
   }
 
   public static Line eulerLine(Point P1, Point P2, Point P3) // returns the Euler line of triangle P1P2P3
   {
-    if (P1.equals(P2) || P2.equals(P3) || P3.equals(P1))
-      throw new IllegalArgumentException("points must be distinct");
-    if (centroid(P1, P2, P3).equals(orthocenter(P1, P2, P3)))
-      throw new IllegalArgumentException("triangle cannot be equilateral");
-    return new Line(centroid(P1, P2, P3), orthocenter(P1, P2, P3));
+    return CACHE.get("eulerLine", () ->
+    {
+      if (P1.equals(P2) || P2.equals(P3) || P3.equals(P1))
+        throw new IllegalArgumentException("points must be distinct");
+      if (centroid(P1, P2, P3).equals(orthocenter(P1, P2, P3)))
+        throw new IllegalArgumentException("triangle cannot be equilateral");
+      return new Line(centroid(P1, P2, P3), orthocenter(P1, P2, P3));
+    }, P1, P2, P3);
   }
 
   public static HomogenousPolynomial det(HomogenousVector v1, HomogenousVector v2, HomogenousVector v3) // returns the determinant of
@@ -151,12 +207,20 @@ public class Geometry
   public static Circle circumcircle(Point P1, Point P2, Point P3) // returns the circle through P1, P2, P3
                                                                   // determined by a given formula
   {
-    if (Geometry.col(P1, P2, P3))
-      throw new IllegalArgumentException("triangle must be nondegenerate");
+    return CACHE.get("circumcircle", () ->
+    {
+      if (Geometry.col(P1, P2, P3))
+        throw new IllegalArgumentException("triangle must be nondegenerate");
+      return new Circle(new Construction<Circle>(2 * (P1.degree() + P2.degree() + P3.degree()), () -> expandCircumcircle(P1, P2, P3), t -> circumcircleSample(P1, P2, P3, t), n -> n.circumcircle(P1.shadow(n), P2.shadow(n), P3.shadow(n))));
+    }, P1, P2, P3);
+  }
+
+  private static Circle expandCircumcircle(Point P1, Point P2, Point P3) // returns the circle through P1, P2, P3 by the formula
+  {
     HomogenousPolynomial weight1 = P1.weight();
     HomogenousPolynomial weight2 = P2.weight();
     HomogenousPolynomial weight3 = P3.weight();
-    HomogenousVector squ = new HomogenousVector("a^2", "b^2", "c^2");
+    HomogenousVector squ = Constants.SQU;
     HomogenousVector v1 = P1.getCoords();
     HomogenousVector v2 = P2.getCoords();
     HomogenousVector v3 = P3.getCoords();
@@ -188,77 +252,227 @@ public class Geometry
     return new Circle(det, radX, radY, radZ);
   }
 
+  private static long[] circumcircleSample(Point P1, Point P2, Point P3, int t) // returns k, u, v, w of the circle through P1,
+                                                                               // P2, P3 at the random point Modular.sample(t),
+                                                                               // by the formula in expandCircumcircle
+  {
+    Modular field = Modular.sampleField();
+    long[] squ = Constants.SQU.sample(t);
+    long[][] v = {P1.sample(t), P2.sample(t), P3.sample(t)};
+    long[] weight = new long[3];
+    long[] power = new long[3];
+    for (int i = 0; i < 3; i++)
+    {
+      weight[i] = field.add(field.add(v[i][0], v[i][1]), v[i][2]);
+      power[i] = field.dot(squ, new long[] {field.mul(v[i][1], v[i][2]), field.mul(v[i][2], v[i][0]), field.mul(v[i][0], v[i][1])});
+    }
+    long[] rad = new long[3];
+    for (int i = 0; i < 3; i++)
+    {
+      int j = (i + 1) % 3;
+      int k = (i + 2) % 3;
+      long[] cross = field.cross(v[j], v[k]);
+      long factor = field.mul(field.mul(weight[j], weight[k]), power[i]);
+      for (int m = 0; m < 3; m++)
+        rad[m] = field.add(rad[m], field.mul(cross[m], factor));
+    }
+    long det = field.mul(field.mul(weight[0], field.mul(weight[1], weight[2])), field.det(v[0], v[1], v[2]));
+    return new long[] {det, rad[0], rad[1], rad[2]};
+  }
+
   public static boolean cyclic(Point P1, Point P2, Point P3, Point P4) // returns whether P1, P2, P3, P4 are concyclic
   {
-    if (P1.equals(P2) || P1.equals(P3) || P1.equals(P4) || P2.equals(P3) || P2.equals(P4) || P3.equals(P4))
-      return true;
-    if (col(P1, P2, P3))
-      return col(P1, P2, P4);
-    return P4.on(circumcircle(P1, P2, P3));
+    Point[] P = {P1, P2, P3, P4};
+    int degree = 2;
+    for (int i = 0; i < 4; i++)
+      degree += 2 * P[i].degree();
+    BooleanSupplier exact = () ->
+    {
+      if (P1.equals(P2) || P1.equals(P3) || P1.equals(P4) || P2.equals(P3) || P2.equals(P4) || P3.equals(P4))
+        return true;
+      if (col(P1, P2, P3))
+        return col(P1, P2, P4);
+      return P4.on(circumcircle(P1, P2, P3));
+    };
+    if (!cyclicGeneric(P))
+      return exact.getAsBoolean();
+    return Modular.sampleZero(degree, t -> cyclicSample(P, t), exact);
+  }
+
+  private static boolean cyclicGeneric(Point[] P) // returns whether no point is at infinity and no three are collinear at the
+                                                  // random point Modular.sample(0), without which the determinant in
+                                                  // cyclicSample vanishes identically whether or not the points are concyclic
+  {
+    Modular field = Modular.sampleField();
+    long[][] v = new long[4][];
+    for (int i = 0; i < 4; i++)
+    {
+      v[i] = P[i].sample(0);
+      if (field.add(field.add(v[i][0], v[i][1]), v[i][2]) == 0)
+        return false;
+    }
+    for (int i = 0; i < 4; i++)
+      if (field.det(v[i == 0 ? 1 : 0], v[i <= 1 ? 2 : 1], v[i <= 2 ? 3 : 2]) == 0)
+        return false;
+    return true;
+  }
+
+  private static long cyclicSample(Point[] P, int t) // returns the 4x4 determinant with rows (a^2yz+b^2zx+c^2xy, (x+y+z)x, (x+y+z)y,
+                                                     // (x+y+z)z) for the four points at the random point Modular.sample(t), which
+                                                     // vanishes whenever they are concyclic, expanded along the first column
+  {
+    Modular field = Modular.sampleField();
+    long[] squ = Constants.SQU.sample(t);
+    long[][] v = new long[4][];
+    long[] weight = new long[4];
+    long[] power = new long[4];
+    for (int i = 0; i < 4; i++)
+    {
+      v[i] = P[i].sample(t);
+      weight[i] = field.add(field.add(v[i][0], v[i][1]), v[i][2]);
+      power[i] = field.dot(squ, new long[] {field.mul(v[i][1], v[i][2]), field.mul(v[i][2], v[i][0]), field.mul(v[i][0], v[i][1])});
+    }
+    long det = 0;
+    for (int i = 0; i < 4; i++)
+    {
+      int j1 = i == 0 ? 1 : 0;
+      int j2 = i <= 1 ? 2 : 1;
+      int j3 = i <= 2 ? 3 : 2;
+      long term = field.mul(field.mul(power[i], field.mul(weight[j1], field.mul(weight[j2], weight[j3]))), field.det(v[j1], v[j2], v[j3]));
+      det = i % 2 == 0 ? field.add(det, term) : field.sub(det, term);
+    }
+    return det;
   }
 
   public static Point secondInt(Line l, Circle c, Point P) // returns the second intersection of l and c given one intersection P
   {
-    if (!(P.on(l) && P.on(c)))
-      throw new IllegalArgumentException("point must lie on line and circle");
-    return P.reflectOver(Geometry.perp(c.center(), l));
+    return CACHE.get("secondInt(line)", () ->
+    {
+      if (!(P.on(l) && P.on(c)))
+        throw new IllegalArgumentException("point must lie on line and circle");
+      return P.reflectOver(Geometry.perp(c.center(), l));
+    }, l, c, P);
   }
 
   public static Point secondInt(Circle c1, Circle c2, Point P) // returns the second intersection of c1 and c2 given one intersection P
   {
-    if (c1.equals(c2))
-      throw new IllegalArgumentException("circles must be distinct");
-    if (!(P.on(c1) && P.on(c2)))
-      throw new IllegalArgumentException("point must lie on both circles");
-    return P.reflectOver(new Line(c1.center(), c2.center()));
+    return CACHE.get("secondInt(circle)", () ->
+    {
+      if (c1.equals(c2))
+        throw new IllegalArgumentException("circles must be distinct");
+      if (!(P.on(c1) && P.on(c2)))
+        throw new IllegalArgumentException("point must lie on both circles");
+      return P.reflectOver(new Line(c1.center(), c2.center()));
+    }, c1, c2, P);
   }
 
   public static Line radAxis(Circle c1, Circle c2) // returns the radical axis of c1 and c2, the line through their two intersection points
   {
-    if (c1.equals(c2))
-      throw new IllegalArgumentException("circles must be distinct");
-    return new Line(c2.getCoeff().times(c1.getRadCoeffs()).plus(c1.getCoeff().times(c2.getRadCoeffs().times(new BigInteger("-1")))));
+    return CACHE.get("radAxis", () ->
+    {
+      if (c1.equals(c2))
+        throw new IllegalArgumentException("circles must be distinct");
+      return new Line(new Construction<HomogenousVector>(c1.degree() + c2.degree() + 2, () -> c2.getCoeff().times(c1.getRadCoeffs()).plus(c1.getCoeff().times(c2.getRadCoeffs().times(new BigInteger("-1")))), t -> radAxisSample(c1, c2, t), n -> n.radAxis(c1.shadow(n), c2.shadow(n))));
+    }, c1, c2);
   }
 
   public static Point radCenter(Circle c1, Circle c2, Circle c3) // returns the radical center of c1, c2, c3
                                                                  // the concurrence point of the pairwise radical axes
   {
-    if (c1.equals(c2) || c2.equals(c3) || c3.equals(c1))
-      throw new IllegalArgumentException("circles must be pairwise distinct");
-    return new Point(radAxis(c1, c2), radAxis(c1, c3));
+    return CACHE.get("radCenter", () ->
+    {
+      if (c1.equals(c2) || c2.equals(c3) || c3.equals(c1))
+        throw new IllegalArgumentException("circles must be pairwise distinct");
+      return new Point(radAxis(c1, c2), radAxis(c1, c3));
+    }, c1, c2, c3);
   }
 
-  public static boolean isTangent(Circle c1, Circle c2) // returns whether c1 and c2 are tangent
+  public static boolean isTangent(Circle c1, Circle c2) // returns whether c1 and c2 are tangent, i.e. their radical axis is tangent
   {
-    if (c1.equals(c2))
+    long[] axis = radAxisSample(c1, c2, 0);
+    if (axis[0] == 0 && axis[1] == 0 && axis[2] == 0 && c1.equals(c2))
       throw new IllegalArgumentException("circles must be distinct");
-    return foot(c1.center(), radAxis(c1, c2)).on(c1);
+    int degree = 2 * (c1.degree() + 2 + 2 * (c1.degree() + c2.degree() + 2));
+    return Modular.sampleZero(degree, t -> tangencySample(radAxisSample(c1, c2, t), c1, t), () -> foot(c1.center(), radAxis(c1, c2)).on(c1));
   }
 
   public static boolean isTangent(Line l, Circle c) // returns whether l and c are tangent
   {
-    return foot(c.center(), l).on(c);
+    int degree = 2 * (c.degree() + 2 + 2 * l.degree());
+    return Modular.sampleZero(degree, t -> tangencySample(l.sample(t), c, t), () -> foot(c.center(), l).on(c));
+  }
+
+  private static long[] radAxisSample(Circle c1, Circle c2, int t) // returns the coefficients of the radical axis of c1 and c2 at
+                                                                    // the random point Modular.sample(t)
+  {
+    Modular field = Modular.sampleField();
+    long[] s1 = c1.sample(t);
+    long[] s2 = c2.sample(t);
+    long[] axis = new long[3];
+    for (int i = 0; i < 3; i++)
+      axis[i] = field.sub(field.mul(s2[0], s1[i + 1]), field.mul(s1[0], s2[i + 1]));
+    return axis;
+  }
+
+  private static long tangencySample(long[] l, Circle c, int t) // returns the discriminant of the equation of c restricted to the
+                                                                // line with coefficients l at the random point Modular.sample(t),
+                                                                // which vanishes when the line is tangent, or 0 if l vanishes there
+  {
+    Modular field = Modular.sampleField();
+    long[] q1; // two distinct points on the line, the cross products of l with two of the vertices
+    long[] q2;
+    if (l[0] != 0)
+    {
+      q1 = new long[] {field.neg(l[2]), 0, l[0]};
+      q2 = new long[] {l[1], field.neg(l[0]), 0};
+    }
+    else if (l[1] != 0)
+    {
+      q1 = new long[] {0, l[2], field.neg(l[1])};
+      q2 = new long[] {l[1], field.neg(l[0]), 0};
+    }
+    else if (l[2] != 0)
+    {
+      q1 = new long[] {0, l[2], field.neg(l[1])};
+      q2 = new long[] {field.neg(l[2]), 0, l[0]};
+    }
+    else
+      return 0;
+    long f1 = c.sample(q1, t);
+    long f2 = c.sample(q2, t);
+    long f12 = c.sample(new long[] {field.add(q1[0], q2[0]), field.add(q1[1], q2[1]), field.add(q1[2], q2[2])}, t);
+    long b = field.sub(field.sub(f12, f1), f2); // twice the polar form of q1 and q2
+    return field.sub(field.mul(b, b), field.mul(field.toMontgomery(4), field.mul(f1, f2)));
   }
 
   public static Line tangentLine(Point P, Circle c) // returns the tangent line to c through a point P on it
   {
-    if (!P.on(c))
-      throw new IllegalArgumentException("point must be on circle");
-    return perp(P, new Line(P, c.center()));
+    return CACHE.get("tangentLine", () ->
+    {
+      if (!P.on(c))
+        throw new IllegalArgumentException("point must be on circle");
+      return perp(P, new Line(P, c.center()));
+    }, P, c);
   }
 
   public static Circle pedal(Point A, Point B, Point C, Point P) // returns the circumcircle of the pedal triangle of P with respect to ABC
   {
-    if (P.on(circumcircle(A, B, C)))
-      throw new IllegalArgumentException("point cannot be on circumcircle, use Simson line function instead");
-    return new Circle(foot(P, new Line(B, C)), foot(P, new Line(C, A)), foot(P, new Line(A, B)));
+    return CACHE.get("pedal", () ->
+    {
+      if (P.on(circumcircle(A, B, C)))
+        throw new IllegalArgumentException("point cannot be on circumcircle, use Simson line function instead");
+      return new Circle(foot(P, new Line(B, C)), foot(P, new Line(C, A)), foot(P, new Line(A, B)));
+    }, A, B, C, P);
   }
 
   public static Line simson(Point A, Point B, Point C, Point P) // returns the Simson line of a point P on the circumcircle of ABC
   {
-    if (!P.on(circumcircle(A, B, C)))
-      throw new IllegalArgumentException("point must be on circumcircle");
-    return new Line(foot(P, new Line(A, B)), foot(P, new Line(A, C)));
+    return CACHE.get("simson", () ->
+    {
+      if (!P.on(circumcircle(A, B, C)))
+        throw new IllegalArgumentException("point must be on circumcircle");
+      return new Line(foot(P, new Line(A, B)), foot(P, new Line(A, C)));
+    }, A, B, C, P);
   }
 
   public static Point extension(Point P1, Point P2, Point Q1, Point Q2) // returns the intersection of lines P1P2 and Q1Q2
@@ -284,29 +498,35 @@ public class Geometry
 
   public static Circle centered(Point P, Point Q) // returns the circle centered at P through Q
   {
-    Point A = new Point("1", "0", "0");
-    Point B = new Point("0", "1", "0");
-    Point C = new Point("0", "0", "1");
-    if (P.equals(Q))
-      throw new IllegalArgumentException("points cannot be the same");
-    if (P.equals(A))
-      return new Circle(Q, Q.reflectOver(new Line(B, P)), Q.reflectOver(new Line(C, P)));
-    else if (P.equals(B))
-      return new Circle(Q, Q.reflectOver(new Line(A, P)), Q.reflectOver(new Line(C, P)));
-    else
-      return new Circle(Q, Q.reflectOver(new Line(A, P)), Q.reflectOver(new Line(B, P)));
+    return CACHE.get("centered", () ->
+    {
+      Point A = Constants.A;
+      Point B = Constants.B;
+      Point C = Constants.C;
+      if (P.equals(Q))
+        throw new IllegalArgumentException("points cannot be the same");
+      if (P.equals(A))
+        return new Circle(Q, Q.reflectOver(new Line(B, P)), Q.reflectOver(new Line(C, P)));
+      else if (P.equals(B))
+        return new Circle(Q, Q.reflectOver(new Line(A, P)), Q.reflectOver(new Line(C, P)));
+      else
+        return new Circle(Q, Q.reflectOver(new Line(A, P)), Q.reflectOver(new Line(B, P)));
+    }, P, Q);
   }
 
   public static Circle diameter(Point P1, Point P2) // returns the circle with diameter P1P2
   {
-    if (P1.equals(P2))
-      throw new IllegalArgumentException("points cannot be the same");
-    Point A = new Point("1", "0", "0");
-    Point B = new Point("0", "1", "0");
-    Point C = new Point("0", "0", "1");
-    if (new Line(P1, P2).parallel(new Line(A, B)) || new Line(P1, P2).perp(new Line(A, B)))
-      return new Circle(P1, P2, extension(P1, infPoint(new Line(A, B)), P2, perpInfPoint(new Line(A, B))));
-    else
-      return new Circle(P1, P2, extension(P1, infPoint(new Line(A, C)), P2, perpInfPoint(new Line(A, C))));
+    return CACHE.get("diameter", () ->
+    {
+      if (P1.equals(P2))
+        throw new IllegalArgumentException("points cannot be the same");
+      Point A = Constants.A;
+      Point B = Constants.B;
+      Point C = Constants.C;
+      if (new Line(P1, P2).parallel(new Line(A, B)) || new Line(P1, P2).perp(new Line(A, B)))
+        return new Circle(P1, P2, extension(P1, infPoint(new Line(A, B)), P2, perpInfPoint(new Line(A, B))));
+      else
+        return new Circle(P1, P2, extension(P1, infPoint(new Line(A, C)), P2, perpInfPoint(new Line(A, C))));
+    }, P1, P2);
   }
 }
@@ -1,11 +1,1154 @@
-// a static class for the computation of Grobner bases and polynomial gcds, to be completed soon
+// a static class for the computation of Grobner bases, polynomial gcds and factorizations
+// bases are computed by Buchberger's algorithm in the graded reverse lexicographic order with a > b > c, choosing pairs by the
+// sugar strategy and discarding useless pairs by the Gebauer-Moller criteria
+// inside this class a polynomial is a TreeMap from monomials to nonzero integer coefficients, a monomial a^ib^jc^k packed into a
+// long so that comparing the longs compares the monomials, so the last entry is the leading term
+// reduction is fraction free: instead of dividing by a leading coefficient the polynomial being reduced is scaled, so every
+// result is a positive integer multiple of the one over the rationals, and is returned with the integer content divided out
+// polynomial gcds are found modulo primes by dense interpolation: the polynomials are restricted to lines (alpha + r s, s, 1)
+// through the point Q = (r, 1, 0), whose univariate gcds are the restrictions of the gcd, interpolated in alpha and combined
+// over several primes by the Chinese remainder theorem until the result divides every polynomial
+// the degree of the univariate gcds bounds the degree of the gcd, so a constant one on a single line proves the gcd trivial
+// polynomials are factored by Yun's square free decomposition, after a change of variables giving every factor full degree in a,
+// then each square free part is restricted to b = 0, factored modulo a prime large enough to bound its factors by
+// Cantor-Zassenhaus, lifted back to a factorization modulo b^n by Hensel lifting and recombined by trial division
 
 import java.math.*;
+import java.util.*;
+import java.util.concurrent.*;
 
 public class Grobner
 {
+  private static final int CONTENT_STEPS = 8; // the content of a polynomial being reduced is divided out after this many scalings
+
   public static int gcd(int a, int b)
   {
     return new BigInteger(a + "").gcd(new BigInteger(b + "")).intValue();
   }
+
+  public static HomogenousPolynomial gcd(HomogenousPolynomial... polys) // returns the greatest common divisor of the polynomials,
+                                                                       // with a positive leading coefficient, or 0 if all are 0
+  {
+    ArrayList<HomogenousPolynomial> nonzero = new ArrayList<HomogenousPolynomial>();
+    for (HomogenousPolynomial p : polys)
+      if (!p.equalsZero())
+        nonzero.add(p);
+    if (nonzero.isEmpty())
+      return new HomogenousPolynomial(polys.length == 0 ? 0 : polys[0].degree());
+    BigInteger content = BigInteger.ZERO;
+    int cPower = Integer.MAX_VALUE;
+    for (HomogenousPolynomial p : nonzero)
+    {
+      content = content.gcd(p.gcd());
+      cPower = Math.min(cPower, valuation(p));
+    }
+    TreeMap<Long, BigInteger> g = primitiveGcd(nonzero);
+    TreeMap<Long, BigInteger> h = new TreeMap<Long, BigInteger>();
+    addMultiple(h, g, content, monomial(0, 0, cPower));
+    return polynomial(h, degree(h.lastKey()));
+  }
+
+  public static HomogenousPolynomial[] removeCommonFactor(HomogenousPolynomial... polys) // returns the polynomials divided by their
+                                                                                         // gcd, unchanged if they are all 0
+  {
+    HomogenousPolynomial g = gcd(polys);
+    HomogenousPolynomial[] quotients = polys.clone();
+    if (g.equalsZero() || g.degree() == 0 && g.coeff(0, 0).equals(BigInteger.ONE))
+      return quotients;
+    if (g.degree() == 0)
+    {
+      for (int k = 0; k < polys.length; k++)
+        quotients[k] = polys[k].div(g.coeff(0, 0));
+      return quotients;
+    }
+    for (int k = 0; k < polys.length; k++)
+      quotients[k] = polys[k].divideExact(g);
+    return quotients;
+  }
+
+  public static HomogenousPolynomial[] factor(HomogenousPolynomial p) // returns the irreducible factors of positive degree of a
+                                                                      // nonzero polynomial, primitive with positive leading
+                                                                      // coefficients and repeated by multiplicity, so that their
+                                                                      // product is p up to an integer factor
+  {
+    if (p.equalsZero())
+      throw new IllegalArgumentException("cannot factor 0");
+    int d = p.degree();
+    ArrayList<HomogenousPolynomial> factors = new ArrayList<HomogenousPolynomial>();
+    if (d == 0)
+      return new HomogenousPolynomial[0];
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    HomogenousPolynomial primitive = p.div(p.gcd());
+    BigInteger r, s;
+    HomogenousPolynomial f;
+    for (int range = 0; ; range = 2 * range + 1) // substitutes b + r a for b and c + s a for c until a^d has a nonzero coefficient,
+                                                 // so that every factor has full degree in a
+    {
+      r = BigInteger.valueOf(random.nextInt(-range, range + 1));
+      s = BigInteger.valueOf(random.nextInt(-range, range + 1));
+      f = substitute(substitute(primitive, 1, 0, r), 2, 0, s);
+      if (f.coeff(d, 0).signum() != 0)
+        break;
+    }
+    HomogenousPolynomial derivative = derivative(f); // Yun's square free decomposition, the parts of multiplicity 1, 2, ...
+    HomogenousPolynomial g = gcd(f, derivative);
+    HomogenousPolynomial rest = f.divideExact(g);
+    HomogenousPolynomial excess = derivative.divideExact(g).minus(derivative(rest));
+    for (int multiplicity = 1; rest.degree() > 0; multiplicity++)
+    {
+      HomogenousPolynomial part = gcd(rest, excess);
+      rest = rest.divideExact(part);
+      if (rest.degree() > 0)
+        excess = excess.divideExact(part).minus(derivative(rest));
+      if (part.degree() > 0)
+        for (HomogenousPolynomial h : factorSquareFree(part, random))
+        {
+          HomogenousPolynomial factor = substitute(substitute(h, 2, 0, s.negate()), 1, 0, r.negate());
+          factor = polynomial(terms(factor), factor.degree());
+          for (int k = 0; k < multiplicity; k++)
+            factors.add(factor);
+        }
+    }
+    return factors.toArray(new HomogenousPolynomial[factors.size()]);
+  }
+
+  public static HomogenousPolynomial[] basis(HomogenousPolynomial... generators) // returns the reduced Grobner basis of the ideal
+                                                                                 // generated, each element primitive with a positive
+                                                                                 // leading coefficient, by increasing leading term
+  {
+    ArrayList<TreeMap<Long, BigInteger>> polys = new ArrayList<TreeMap<Long, BigInteger>>(); // every polynomial added so far
+    ArrayList<Integer> sugar = new ArrayList<Integer>(); // the sugar degree of each polynomial
+    ArrayList<Boolean> active = new ArrayList<Boolean>(); // whether no later leading term divides the leading term of each
+    PriorityQueue<long[]> pairs = new PriorityQueue<long[]>(Grobner::comparePairs); // the critical pairs {i, j, lcm, sugar}
+    for (HomogenousPolynomial g : generators)
+    {
+      TreeMap<Long, BigInteger> f = reduce(terms(g), activePolys(polys, active));
+      if (!f.isEmpty())
+        add(f, degree(f.lastKey()), polys, sugar, active, pairs);
+    }
+    while (!pairs.isEmpty())
+    {
+      checkInterrupted();
+      long[] pair = pairs.poll();
+      int i = (int) pair[0];
+      int j = (int) pair[1];
+      TreeMap<Long, BigInteger> s = reduce(sPolynomial(polys.get(i), polys.get(j), pair[2]), activePolys(polys, active));
+      if (!s.isEmpty())
+        add(s, (int) pair[3], polys, sugar, active, pairs);
+    }
+    ArrayList<TreeMap<Long, BigInteger>> minimal = activePolys(polys, active);
+    minimal.sort((f, g) -> Long.compare(f.lastKey(), g.lastKey()));
+    HomogenousPolynomial[] basis = new HomogenousPolynomial[minimal.size()];
+    for (int k = 0; k < basis.length; k++)
+    {
+      ArrayList<TreeMap<Long, BigInteger>> others = new ArrayList<TreeMap<Long, BigInteger>>(minimal);
+      others.remove(k);
+      basis[k] = polynomial(reduce(minimal.get(k), others), degree(minimal.get(k).lastKey()));
+    }
+    return basis;
+  }
+
+  public static HomogenousPolynomial normalForm(HomogenousPolynomial p, HomogenousPolynomial[] basis) // returns the remainder of p
+                                                                                                     // on division by a Grobner
+                                                                                                     // basis, a positive multiple
+                                                                                                     // of the rational normal form
+                                                                                                     // with its content divided out
+  {
+    ArrayList<TreeMap<Long, BigInteger>> divisors = new ArrayList<TreeMap<Long, BigInteger>>();
+    for (HomogenousPolynomial g : basis)
+      if (!g.equalsZero())
+        divisors.add(terms(g));
+    return polynomial(reduce(terms(p), divisors), p.degree());
+  }
+
+  public static boolean member(HomogenousPolynomial p, HomogenousPolynomial... generators) // returns whether p is in the ideal
+                                                                                           // generated
+  {
+    if (p.equalsZero())
+      return true;
+    return normalForm(p, basis(generators)).equalsZero();
+  }
+
+  private static void checkInterrupted() // stops the computation, throwing a CancellationException, if the thread was interrupted
+                                         // because the caller no longer needs the result
+  {
+    if (Thread.interrupted())
+      throw new CancellationException("interrupted");
+  }
+
+  private static void add(TreeMap<Long, BigInteger> h, int hSugar, ArrayList<TreeMap<Long, BigInteger>> polys, ArrayList<Integer> sugar,
+                          ArrayList<Boolean> active, PriorityQueue<long[]> pairs) // adds h to the basis and updates the pairs by the
+                                                                                   // Gebauer-Moller criteria
+  {
+    int n = polys.size();
+    long lh = h.lastKey();
+    ArrayList<long[]> candidates = new ArrayList<long[]>(); // the new pairs of h with every active polynomial
+    for (int g = 0; g < n; g++)
+      if (active.get(g))
+      {
+        long lg = polys.get(g).lastKey();
+        long lcm = lcm(lh, lg);
+        int pairSugar = Math.max(sugar.get(g) + degree(lcm) - degree(lg), hSugar + degree(lcm) - degree(lh));
+        candidates.add(new long[] {g, n, lcm, pairSugar});
+      }
+    ArrayList<long[]> kept = new ArrayList<long[]>(); // the new pairs whose lcm no other new pair's lcm divides
+    for (int k = 0; k < candidates.size(); k++)
+    {
+      long[] pair = candidates.get(k);
+      boolean keep = coprime(lh, polys.get((int) pair[0]).lastKey());
+      if (!keep)
+      {
+        keep = true;
+        for (int l = k + 1; l < candidates.size() && keep; l++)
+          if (divides(candidates.get(l)[2], pair[2]))
+            keep = false;
+        for (int l = 0; l < kept.size() && keep; l++)
+          if (divides(kept.get(l)[2], pair[2]))
+            keep = false;
+      }
+      if (keep)
+        kept.add(pair);
+    }
+    pairs.removeIf(pair -> divides(lh, pair[2]) && lcm(polys.get((int) pair[0]).lastKey(), lh) != pair[2]
+                           && lcm(polys.get((int) pair[1]).lastKey(), lh) != pair[2]);
+    for (long[] pair : kept)
+      if (!coprime(lh, polys.get((int) pair[0]).lastKey()))
+        pairs.add(pair);
+    for (int g = 0; g < n; g++)
+      if (active.get(g) && divides(lh, polys.get(g).lastKey()))
+        active.set(g, false);
+    polys.add(h);
+    sugar.add(hSugar);
+    active.add(true);
+  }
+
+  private static int comparePairs(long[] p, long[] q) // orders pairs by sugar, then by lcm, then by age
+  {
+    if (p[3] != q[3])
+      return Long.compare(p[3], q[3]);
+    if (p[2] != q[2])
+      return Long.compare(p[2], q[2]);
+    if (p[1] != q[1])
+      return Long.compare(p[1], q[1]);
+    return Long.compare(p[0], q[0]);
+  }
+
+  private static ArrayList<TreeMap<Long, BigInteger>> activePolys(ArrayList<TreeMap<Long, BigInteger>> polys, ArrayList<Boolean> active)
+  // returns the active polynomials
+  {
+    ArrayList<TreeMap<Long, BigInteger>> list = new ArrayList<TreeMap<Long, BigInteger>>();
+    for (int k = 0; k < polys.size(); k++)
+      if (active.get(k))
+        list.add(polys.get(k));
+    return list;
+  }
+
+  private static TreeMap<Long, BigInteger> sPolynomial(TreeMap<Long, BigInteger> f, TreeMap<Long, BigInteger> g, long lcm) // returns
+                                                                                   // the S-polynomial of f and g scaled to integers
+  {
+    BigInteger lf = f.lastEntry().getValue();
+    BigInteger lg = g.lastEntry().getValue();
+    BigInteger d = lf.gcd(lg);
+    TreeMap<Long, BigInteger> s = new TreeMap<Long, BigInteger>();
+    addMultiple(s, f, lg.divide(d), quotient(lcm, f.lastKey()));
+    addMultiple(s, g, lf.divide(d).negate(), quotient(lcm, g.lastKey()));
+    return s;
+  }
+
+  private static TreeMap<Long, BigInteger> reduce(TreeMap<Long, BigInteger> f, List<TreeMap<Long, BigInteger>> divisors) // returns f
+                                                                           // fully reduced by the divisors, as a primitive polynomial
+  {
+    TreeMap<Long, BigInteger> p = new TreeMap<Long, BigInteger>(f);
+    TreeMap<Long, BigInteger> r = new TreeMap<Long, BigInteger>(); // the terms that no leading term of a divisor divides
+    int scalings = 0;
+    while (!p.isEmpty())
+    {
+      Map.Entry<Long, BigInteger> lt = p.lastEntry();
+      TreeMap<Long, BigInteger> g = null;
+      for (TreeMap<Long, BigInteger> divisor : divisors)
+        if (divides(divisor.lastKey(), lt.getKey()))
+        {
+          g = divisor;
+          break;
+        }
+      if (g == null)
+      {
+        r.put(lt.getKey(), lt.getValue());
+        p.remove(lt.getKey());
+        continue;
+      }
+      BigInteger lg = g.lastEntry().getValue();
+      BigInteger d = lg.gcd(lt.getValue());
+      BigInteger scale = lg.divide(d);
+      BigInteger multiple = lt.getValue().divide(d);
+      if (scale.signum() < 0)
+      {
+        scale = scale.negate();
+        multiple = multiple.negate();
+      }
+      if (!scale.equals(BigInteger.ONE))
+      {
+        scale(p, scale);
+        scale(r, scale);
+        if (++scalings % CONTENT_STEPS == 0)
+        {
+          BigInteger content = content(p).gcd(content(r));
+          divide(p, content);
+          divide(r, content);
+        }
+      }
+      addMultiple(p, g, multiple.negate(), quotient(lt.getKey(), g.lastKey()));
+    }
+    r.putAll(p);
+    divide(r, content(r));
+    return r;
+  }
+
+  private static TreeMap<Long, BigInteger> primitiveGcd(ArrayList<HomogenousPolynomial> polys) // returns the gcd of the primitive
+                                                                                              // parts of nonzero polynomials with
+                                                                                              // the powers of c divided out
+  {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    int n = polys.size();
+    long r;
+    BigInteger[] lead = new BigInteger[n]; // the values at Q of the polynomials with powers of c divided out
+    BigInteger gamma; // their gcd, a multiple of the value of the gcd at Q
+    int[] cPower = new int[n];
+    for (int k = 0; k < n; k++)
+      cPower[k] = valuation(polys.get(k));
+    boolean zero;
+    do
+    {
+      r = random.nextLong(1, 1 << 20);
+      gamma = BigInteger.ZERO;
+      zero = false;
+      for (int k = 0; k < n; k++)
+      {
+        HomogenousPolynomial p = polys.get(k);
+        int d = p.degree() - cPower[k];
+        lead[k] = BigInteger.ZERO;
+        BigInteger rPower = BigInteger.ONE;
+        for (int i = 0; i <= d; i++)
+        {
+          lead[k] = lead[k].add(p.coeff(i, d - i).multiply(rPower));
+          rPower = rPower.multiply(BigInteger.valueOf(r));
+        }
+        zero |= lead[k].signum() == 0;
+        gamma = gamma.gcd(lead[k]);
+      }
+    }
+    while (zero);
+    int bound = Integer.MAX_VALUE; // the smallest degree of a modular image so far, which bounds the degree of the gcd
+    ArrayList<long[][]> residues = new ArrayList<long[][]>();
+    ArrayList<Modular> fields = new ArrayList<Modular>();
+    BigInteger[][] previous = null;
+    for (int k = 0; ; k++)
+    {
+      checkInterrupted();
+      Modular field = Modular.field(k);
+      BigInteger bigP = BigInteger.valueOf(field.prime());
+      boolean unlucky = gamma.mod(bigP).signum() == 0;
+      for (int l = 0; l < n && !unlucky; l++)
+        unlucky = lead[l].mod(bigP).signum() == 0;
+      if (unlucky)
+        continue;
+      long[][] image = gcdImage(polys, cPower, r, field.toMontgomery(gamma), field);
+      if (image == null || image.length - 1 > bound)
+        continue;
+      int e = image.length - 1;
+      if (e == 0)
+      {
+        TreeMap<Long, BigInteger> one = new TreeMap<Long, BigInteger>();
+        one.put(monomial(0, 0, 0), BigInteger.ONE);
+        return one;
+      }
+      if (e < bound)
+      {
+        bound = e;
+        residues.clear();
+        fields.clear();
+        previous = null;
+      }
+      residues.add(image);
+      fields.add(field);
+      BigInteger[][] combined = combine(residues, fields, e);
+      if (previous != null && Arrays.deepEquals(combined, previous))
+      {
+        TreeMap<Long, BigInteger> h = new TreeMap<Long, BigInteger>();
+        for (int i = 0; i <= e; i++)
+          for (int j = 0; j <= e - i; j++)
+            if (combined[i][j].signum() != 0)
+              h.put(monomial(i, j, e - i - j), combined[i][j]);
+        divide(h, content(h));
+        if (h.lastEntry().getValue().signum() < 0)
+          scale(h, BigInteger.ONE.negate());
+        HomogenousPolynomial divisor = polynomial(h, e);
+        boolean dividesAll = true;
+        for (int l = 0; l < n && dividesAll; l++)
+          dividesAll = polys.get(l).divideExact(divisor) != null;
+        if (dividesAll)
+          return h;
+      }
+      previous = combined;
+    }
+  }
+
+  private static long[][] gcdImage(ArrayList<HomogenousPolynomial> polys, int[] cPower, long r, long gamma, Modular field) // returns
+                        // the coefficients modulo the prime, in Montgomery form, of the gcd of the polynomials with powers of c
+                        // divided out, scaled to have value gamma at Q, as a triangle of degree e, or null if the prime is unlucky
+  {
+    ArrayList<long[][]> coeffs = new ArrayList<long[][]>();
+    for (HomogenousPolynomial p : polys)
+      coeffs.add(p.mod(field));
+    long rM = field.toMontgomery(r);
+    ArrayList<long[]> images = new ArrayList<long[]>();
+    ArrayList<Long> alphas = new ArrayList<Long>();
+    int e = Integer.MAX_VALUE;
+    for (long alpha = 1; images.size() <= (e == Integer.MAX_VALUE ? 0 : e); alpha++)
+    {
+      if (alpha >= field.prime())
+        return null;
+      long alphaM = field.toMontgomery(alpha);
+      long[] g = null;
+      for (int k = 0; k < polys.size(); k++)
+      {
+        long[] u = restrict(coeffs.get(k), polys.get(k).degree(), polys.get(k).degree() - cPower[k], alphaM, rM, field);
+        g = g == null ? u : gcd(g, u, field);
+      }
+      int degree = g.length - 1;
+      if (degree > e)
+        continue;
+      if (degree < e)
+      {
+        e = degree;
+        images.clear();
+        alphas.clear();
+      }
+      long scale = field.mul(gamma, inverse(g[e], field));
+      for (int t = 0; t <= e; t++)
+        g[t] = field.mul(g[t], scale);
+      images.add(g);
+      alphas.add(alphaM);
+    }
+    long[][] shifted = new long[e + 1][]; // the coefficients of the gcd h'(A, S, C) = h(A + r S, S, C), indexed by powers of A and S
+    for (int i = 0; i <= e; i++)
+      shifted[i] = new long[e + 1 - i];
+    long[][] values = new long[e + 1][e + 1];
+    for (int k = 0; k <= e; k++)
+      for (int j = 0; j <= e; j++)
+        values[j][k] = images.get(k)[j];
+    long[] xs = new long[e + 1];
+    for (int k = 0; k <= e; k++)
+      xs[k] = alphas.get(k);
+    for (int j = 0; j <= e; j++)
+    {
+      long[] poly = interpolate(xs, values[j], field);
+      for (int i = 0; i < poly.length; i++)
+        if (i + j > e)
+        {
+          if (poly[i] != 0)
+            return null;
+        }
+        else
+          shifted[i][j] = poly[i];
+    }
+    long[][] h = new long[e + 1][]; // h(a, b, c) = h'(a - r b, b, c), expanding (a - r b)^i by the binomial theorem
+    for (int i = 0; i <= e; i++)
+      h[i] = new long[e + 1 - i];
+    long minusR = field.neg(rM);
+    long[] binomial = new long[e + 1];
+    for (int i = 0; i <= e; i++)
+    {
+      binomial[0] = field.toMontgomery(1);
+      for (int t = i; t > 0; t--)
+        binomial[t] = field.add(binomial[t], binomial[t - 1]); // row i of Pascal's triangle
+      for (int j = 0; j <= e - i; j++)
+      {
+        if (shifted[i][j] == 0)
+          continue;
+        long term = shifted[i][j];
+        for (int t = 0; t <= i; t++)
+        {
+          h[i - t][j + t] = field.add(h[i - t][j + t], field.mul(term, binomial[t]));
+          term = field.mul(term, minusR);
+        }
+      }
+    }
+    return h;
+  }
+
+  private static long[] restrict(long[][] coeffs, int d, int degree, long alpha, long r, Modular field) // returns the coefficients of
+                                                     // p(alpha + r s, s, 1) in s, of the given degree, for p of degree d with
+                                                     // coefficients coeffs, all in Montgomery form
+  {
+    long[][] power = new long[d + 1][]; // the coefficients of (alpha + r s)^i
+    power[0] = new long[] {field.toMontgomery(1)};
+    for (int i = 1; i <= d; i++)
+    {
+      power[i] = new long[i + 1];
+      for (int t = 0; t < i; t++)
+      {
+        power[i][t] = field.add(power[i][t], field.mul(power[i - 1][t], alpha));
+        power[i][t + 1] = field.mul(power[i - 1][t], r);
+      }
+    }
+    long[] u = new long[d + 1];
+    for (int i = 0; i <= d; i++)
+      for (int j = 0; j <= d - i; j++)
+        if (coeffs[i][j] != 0)
+          for (int t = 0; t <= i; t++)
+            u[j + t] = field.add(u[j + t], field.mul(coeffs[i][j], power[i][t]));
+    return Arrays.copyOf(u, degree + 1);
+  }
+
+  private static long[] gcd(long[] u, long[] v, Modular field) // returns the gcd of two univariate polynomials modulo the prime,
+                                                               // coefficients in Montgomery form from the constant term up
+  {
+    u = trim(u);
+    v = trim(v);
+    while (v.length > 0)
+    {
+      long[] r = u.clone();
+      int dv = v.length - 1;
+      long inverse = inverse(v[dv], field);
+      for (int i = r.length - 1; i >= dv; i--)
+      {
+        if (r[i] == 0)
+          continue;
+        long q = field.mul(r[i], inverse);
+        for (int t = 0; t <= dv; t++)
+          r[i - dv + t] = field.sub(r[i - dv + t], field.mul(q, v[t]));
+      }
+      u = v;
+      v = trim(Arrays.copyOf(r, dv));
+    }
+    return u;
+  }
+
+  private static long[] trim(long[] u) // returns u without its leading zero coefficients
+  {
+    int length = u.length;
+    while (length > 0 && u[length - 1] == 0)
+      length--;
+    return length == u.length ? u : Arrays.copyOf(u, length);
+  }
+
+  private static long inverse(long x, Modular field) // returns the inverse of x in Montgomery form
+  {
+    return field.toMontgomery(field.inverse(field.fromMontgomery(x)));
+  }
+
+  private static long[] interpolate(long[] xs, long[] ys, Modular field) // returns the coefficients of the polynomial of degree less
+                                                                         // than the number of points through them, by Newton's
+                                                                         // divided differences, all in Montgomery form
+  {
+    int n = xs.length;
+    long[] c = ys.clone();
+    for (int k = 1; k < n; k++)
+      for (int i = n - 1; i >= k; i--)
+        c[i] = field.mul(field.sub(c[i], c[i - 1]), inverse(field.sub(xs[i], xs[i - k]), field));
+    long[] poly = new long[n];
+    poly[0] = c[n - 1];
+    for (int i = n - 2; i >= 0; i--) // poly = poly * (x - xs[i]) + c[i]
+    {
+      for (int t = n - 1; t > 0; t--)
+        poly[t] = field.sub(poly[t - 1], field.mul(poly[t], xs[i]));
+      poly[0] = field.sub(c[i], field.mul(poly[0], xs[i]));
+    }
+    return poly;
+  }
+
+  private static BigInteger[][] combine(ArrayList<long[][]> residues, ArrayList<Modular> fields, int e) // returns the triangle of
+                                                                                                        // integers congruent to the
+                                                                                                        // residues, in Montgomery
+                                                                                                        // form modulo the fields
+  {
+    long[] p = new long[fields.size()];
+    for (int k = 0; k < p.length; k++)
+      p[k] = fields.get(k).prime();
+    long[] r = new long[p.length];
+    BigInteger[][] combined = new BigInteger[e + 1][];
+    for (int i = 0; i <= e; i++)
+    {
+      combined[i] = new BigInteger[e + 1 - i];
+      for (int j = 0; j <= e - i; j++)
+      {
+        for (int k = 0; k < p.length; k++)
+          r[k] = fields.get(k).fromMontgomery(residues.get(k)[i][j]);
+        combined[i][j] = Modular.crt(r, p);
+      }
+    }
+    return combined;
+  }
+
+  private static int valuation(HomogenousPolynomial p) // returns the largest power of c dividing a nonzero polynomial
+  {
+    int d = p.degree();
+    for (int k = 0; k <= d; k++)
+      for (int i = 0; i <= d - k; i++)
+        if (p.coeff(i, d - k - i).signum() != 0)
+          return k;
+    return d;
+  }
+
+  private static ArrayList<HomogenousPolynomial> factorSquareFree(HomogenousPolynomial f, ThreadLocalRandom random) // returns the
+                             // irreducible factors of a square free primitive polynomial of degree e whose a^e coefficient is not 0
+  {
+    int e = f.degree();
+    ArrayList<HomogenousPolynomial> factors = new ArrayList<HomogenousPolynomial>();
+    if (e == 1)
+    {
+      factors.add(f);
+      return factors;
+    }
+    for (int range = 0; ; range = 2 * range + 1)
+    {
+      BigInteger beta = BigInteger.valueOf(random.nextInt(-range, range + 1));
+      HomogenousPolynomial g = substitute(f, 1, 2, beta); // moves the line b = beta c to b = 0
+      BigInteger lead = g.coeff(e, 0);
+      int bits = lead.bitLength() + g.coeffBits() + 3 * e + 2 * (32 - Integer.numberOfLeadingZeros(e + 2)) + 2; // bounds the
+                                                        // coefficients of lead times any factor divided by its leading coefficient
+      BigInteger prime = BigInteger.probablePrime(bits, random);
+      if (lead.mod(prime).signum() == 0)
+        continue;
+      BigInteger inverse = lead.modInverse(prime);
+      int n = 0; // the image of g(a, b, 1) / lead as a polynomial in b truncated at b^n, with coefficients polynomials in a
+      BigInteger[][] image = new BigInteger[e + 1][];
+      for (int k = 0; k <= e; k++)
+      {
+        image[k] = new BigInteger[e + 1 - k];
+        for (int i = 0; i <= e - k; i++)
+          image[k][i] = g.coeff(i, k).multiply(inverse).mod(prime);
+        image[k] = trim(image[k]);
+        if (image[k].length > 0)
+          n = k + 1;
+      }
+      if (gcd(image[0], derivative(image[0], prime), prime).length > 1) // g(a, 0, 1) must stay square free
+        continue;
+      ArrayList<BigInteger[]> univariate = new ArrayList<BigInteger[]>();
+      factor(image[0], prime, random, univariate);
+      if (univariate.size() == 1)
+      {
+        factors.add(f);
+        return factors;
+      }
+      ArrayList<BigInteger[][]> lifted = lift(image, n, univariate, prime);
+      BigInteger constant = g.coeff(0, 0);
+      int size = 1; // Zassenhaus recombination, trying products of the lifted factors by increasing number
+      int[] subset = {0};
+      while (2 * size <= lifted.size())
+      {
+        checkInterrupted();
+        HomogenousPolynomial h = candidate(lifted, subset, g.coeff(g.degree(), 0), constant, n, prime);
+        HomogenousPolynomial q = h == null ? null : g.divideExact(h);
+        if (q != null)
+        {
+          factors.add(substitute(h, 1, 2, beta.negate()));
+          g = q;
+          constant = g.coeff(0, 0);
+          for (int k = size - 1; k >= 0; k--)
+            lifted.remove(subset[k]);
+        }
+        else if (next(subset, lifted.size()))
+          continue;
+        else
+          size++;
+        subset = new int[size];
+        for (int k = 0; k < size; k++)
+          subset[k] = k;
+      }
+      factors.add(substitute(polynomial(terms(g), g.degree()), 1, 2, beta.negate()));
+      return factors;
+    }
+  }
+
+  private static void factor(BigInteger[] u, BigInteger p, ThreadLocalRandom random, ArrayList<BigInteger[]> factors) // adds the
+                      // irreducible factors of a monic square free univariate polynomial modulo p to factors, by Cantor-Zassenhaus
+  {
+    BigInteger[] x = {BigInteger.ZERO, BigInteger.ONE};
+    BigInteger[][] frobenius = new BigInteger[u.length - 1][]; // x^(i p) modulo u, so that w^p is found without powering
+    frobenius[0] = new BigInteger[] {BigInteger.ONE};
+    BigInteger[] xp = power(x, p, u, p);
+    for (int i = 1; i < frobenius.length; i++)
+      frobenius[i] = divideAndRemainder(multiply(frobenius[i - 1], xp, p), u, p)[1];
+    BigInteger[] w = x; // x^(p^k) modulo u
+    for (int k = 1; 2 * k < u.length; k++)
+    {
+      w = frobenius(w, frobenius, u, p);
+      BigInteger[] g = gcd(u, subtract(w, x, p), p);
+      if (g.length > 1)
+      {
+        split(g, k, frobenius, p, random, factors);
+        u = divideAndRemainder(u, g, p)[0];
+        w = divideAndRemainder(w, u, p)[1];
+      }
+    }
+    if (u.length > 1)
+      factors.add(u);
+  }
+
+  private static void split(BigInteger[] g, int k, BigInteger[][] frobenius, BigInteger p, ThreadLocalRandom random,
+                            ArrayList<BigInteger[]> factors) // adds the irreducible factors of a monic product of distinct ones of
+                                                             // degree k to factors
+  {
+    if (g.length == k + 1)
+    {
+      factors.add(g);
+      return;
+    }
+    BigInteger exponent = p.shiftRight(1);
+    while (true)
+    {
+      checkInterrupted();
+      BigInteger[] v = new BigInteger[g.length - 1];
+      for (int i = 0; i < v.length; i++)
+        v[i] = new BigInteger(p.bitLength() + 8, random).mod(p);
+      v = trim(v);
+      BigInteger[] norm = v; // v^(1 + p + ... + p^(k-1)), so that its power (p - 1) / 2 is v^((p^k - 1) / 2)
+      for (int j = 1; j < k; j++)
+      {
+        v = frobenius(v, frobenius, g, p);
+        norm = divideAndRemainder(multiply(norm, v, p), g, p)[1];
+      }
+      BigInteger[] h = gcd(g, subtract(power(norm, exponent, g, p), new BigInteger[] {BigInteger.ONE}, p), p);
+      if (h.length > 1 && h.length < g.length)
+      {
+        split(h, k, frobenius, p, random, factors);
+        split(divideAndRemainder(g, h, p)[0], k, frobenius, p, random, factors);
+        return;
+      }
+    }
+  }
+
+  private static BigInteger[] frobenius(BigInteger[] w, BigInteger[][] frobenius, BigInteger[] m, BigInteger p) // returns w^p modulo
+                                                     // a divisor m of the polynomial whose powers x^(i p) are given, and modulo p
+  {
+    BigInteger[] sum = new BigInteger[0];
+    for (int i = 0; i < w.length; i++)
+      if (w[i].signum() != 0)
+        sum = add(sum, multiply(frobenius[i], new BigInteger[] {w[i]}, p), p);
+    return divideAndRemainder(sum, m, p)[1];
+  }
+
+  private static ArrayList<BigInteger[][]> lift(BigInteger[][] image, int n, ArrayList<BigInteger[]> factors, BigInteger p) // returns
+                    // the monic factors of image modulo b^n and p whose values at b = 0 are the given coprime factors of image[0]
+  {
+    int m = factors.size();
+    ArrayList<BigInteger[][]> lifted = new ArrayList<BigInteger[][]>();
+    BigInteger[][] cofactors = new BigInteger[m][]; // s_i with the sum of s_i times the product of the other factors equal to 1
+    for (int i = 0; i < m; i++)
+    {
+      BigInteger[] u = factors.get(i);
+      BigInteger[] product = {BigInteger.ONE};
+      for (int j = 0; j < m; j++)
+        if (j != i)
+          product = divideAndRemainder(multiply(product, factors.get(j), p), u, p)[1];
+      cofactors[i] = inverse(product, u, p);
+      BigInteger[][] factor = new BigInteger[n][];
+      factor[0] = u;
+      for (int k = 1; k < n; k++)
+        factor[k] = new BigInteger[0];
+      lifted.add(factor);
+    }
+    BigInteger[][][] partial = new BigInteger[m][n][]; // the products of the first j + 1 lifted factors, whose coefficients of b^k
+                                                      // only change when those of the factors do
+    partial[0] = lifted.get(0);
+    for (int j = 1; j < m; j++)
+    {
+      partial[j][0] = multiply(partial[j - 1][0], factors.get(j), p);
+      for (int k = 1; k < n; k++)
+        partial[j][k] = new BigInteger[0];
+    }
+    for (int k = 1; k < n; k++) // corrects the coefficients of b^k so that the product agrees with image up to b^k
+    {
+      checkInterrupted();
+      for (int pass = 0; pass < 2; pass++)
+      {
+        for (int j = 1; j < m; j++)
+        {
+          BigInteger[] sum = new BigInteger[0];
+          for (int l = 0; l <= k; l++)
+            sum = add(sum, multiply(partial[j - 1][l], lifted.get(j)[k - l], p), p);
+          partial[j][k] = sum;
+        }
+        if (pass == 0)
+        {
+          BigInteger[] error = subtract(image[k], partial[m - 1][k], p);
+          for (int i = 0; i < m; i++)
+            lifted.get(i)[k] = divideAndRemainder(multiply(cofactors[i], error, p), factors.get(i), p)[1];
+        }
+      }
+    }
+    return lifted;
+  }
+
+  private static HomogenousPolynomial candidate(ArrayList<BigInteger[][]> lifted, int[] subset, BigInteger lead,
+                                                BigInteger constant, int n, BigInteger p) // returns the primitive integer
+                                       // polynomial whose image is lead times the product of the lifted factors in subset, or null
+                                       // if its degree or its constant term, which must divide lead times the constant term of the
+                                       // polynomial factored, shows it cannot divide
+  {
+    BigInteger half = p.shiftRight(1);
+    if (constant.signum() != 0)
+    {
+      BigInteger c = lead.mod(p);
+      for (int k : subset)
+        c = c.multiply(lifted.get(k)[0].length == 0 ? BigInteger.ZERO : lifted.get(k)[0][0]).mod(p);
+      if (c.compareTo(half) > 0)
+        c = c.subtract(p);
+      if (c.signum() == 0 || lead.multiply(constant).mod(c.abs()).signum() != 0)
+        return null;
+    }
+    BigInteger[][] product = {{lead.mod(p)}};
+    for (int k : subset)
+      product = multiply(product, lifted.get(k), n, p);
+    int t = product[0].length - 1;
+    TreeMap<Long, BigInteger> h = new TreeMap<Long, BigInteger>();
+    for (int k = 0; k < product.length; k++)
+      for (int i = 0; i < product[k].length; i++)
+      {
+        BigInteger c = product[k][i];
+        if (c.signum() == 0)
+          continue;
+        if (i + k > t)
+          return null;
+        h.put(monomial(i, k, t - i - k), c.compareTo(half) > 0 ? c.subtract(p) : c);
+      }
+    divide(h, content(h));
+    return polynomial(h, t);
+  }
+
+  private static boolean next(int[] subset, int n) // advances subset to the next one of its size from 0, ..., n - 1 in
+                                                   // lexicographic order, returning false if it was the last
+  {
+    int size = subset.length;
+    int i = size - 1;
+    while (i >= 0 && subset[i] == n - size + i)
+      i--;
+    if (i < 0)
+      return false;
+    subset[i]++;
+    for (int k = i + 1; k < size; k++)
+      subset[k] = subset[k - 1] + 1;
+    return true;
+  }
+
+  private static HomogenousPolynomial substitute(HomogenousPolynomial p, int v, int w, BigInteger r) // returns p with v + r w in
+                                                                                 // place of v, numbering the variables a, b, c from 0
+  {
+    if (r.signum() == 0)
+      return p;
+    int d = p.degree();
+    BigInteger[][] coeffs = new BigInteger[d + 1][d + 1];
+    for (BigInteger[] row : coeffs)
+      Arrays.fill(row, BigInteger.ZERO);
+    BigInteger[] powers = new BigInteger[d + 1];
+    powers[0] = BigInteger.ONE;
+    for (int u = 1; u <= d; u++)
+      powers[u] = powers[u - 1].multiply(r);
+    int[] exponents = new int[3];
+    for (int i = 0; i <= d; i++)
+      for (int j = 0; j <= d - i; j++)
+      {
+        BigInteger c = p.coeff(i, j);
+        if (c.signum() == 0)
+          continue;
+        exponents[0] = i;
+        exponents[1] = j;
+        exponents[2] = d - i - j;
+        int m = exponents[v];
+        BigInteger binomial = BigInteger.ONE;
+        for (int u = 0; u <= m; u++) // the term of v^(m-u) (r w)^u
+        {
+          exponents[v] = m - u;
+          exponents[w] += u;
+          coeffs[exponents[0]][exponents[1]] = coeffs[exponents[0]][exponents[1]].add(c.multiply(binomial).multiply(powers[u]));
+          exponents[w] -= u;
+          binomial = binomial.multiply(BigInteger.valueOf(m - u)).divide(BigInteger.valueOf(u + 1));
+        }
+      }
+    return new HomogenousPolynomial(coeffs);
+  }
+
+  private static HomogenousPolynomial derivative(HomogenousPolynomial p) // returns the derivative of p of positive degree by a
+  {
+    int d = p.degree();
+    BigInteger[][] coeffs = new BigInteger[d][d];
+    for (int i = 0; i < d; i++)
+      for (int j = 0; j < d; j++)
+        coeffs[i][j] = i + j < d ? p.coeff(i + 1, j).multiply(BigInteger.valueOf(i + 1)) : BigInteger.ZERO;
+    return new HomogenousPolynomial(coeffs);
+  }
+
+  private static BigInteger[][] multiply(BigInteger[][] x, BigInteger[][] y, int n, BigInteger p) // returns the product modulo b^n
+                                                           // and p of polynomials in b whose coefficients are polynomials in a
+  {
+    BigInteger[][] product = new BigInteger[Math.min(x.length + y.length - 1, n)][];
+    for (int t = 0; t < product.length; t++)
+    {
+      BigInteger[] sum = new BigInteger[0];
+      for (int k = Math.max(0, t - y.length + 1); k <= t && k < x.length; k++)
+        sum = add(sum, multiply(x[k], y[t - k], p), p);
+      product[t] = sum;
+    }
+    return product;
+  }
+
+  private static BigInteger[] multiply(BigInteger[] u, BigInteger[] v, BigInteger p) // returns the product of univariate
+                                                                                    // polynomials modulo p, coefficients from the
+                                                                                    // constant term up with no leading zeros
+  {
+    if (u.length == 0 || v.length == 0)
+      return new BigInteger[0];
+    BigInteger[] w = new BigInteger[u.length + v.length - 1];
+    Arrays.fill(w, BigInteger.ZERO);
+    for (int i = 0; i < u.length; i++)
+      if (u[i].signum() != 0)
+        for (int j = 0; j < v.length; j++)
+          w[i + j] = w[i + j].add(u[i].multiply(v[j]));
+    for (int i = 0; i < w.length; i++)
+      w[i] = w[i].mod(p);
+    return trim(w);
+  }
+
+  private static BigInteger[] add(BigInteger[] u, BigInteger[] v, BigInteger p) // returns the sum of univariate polynomials modulo p
+  {
+    BigInteger[] w = Arrays.copyOf(u.length >= v.length ? u : v, Math.max(u.length, v.length));
+    BigInteger[] shorter = u.length >= v.length ? v : u;
+    for (int i = 0; i < shorter.length; i++)
+      w[i] = w[i].add(shorter[i]).mod(p);
+    return trim(w);
+  }
+
+  private static BigInteger[] subtract(BigInteger[] u, BigInteger[] v, BigInteger p) // returns the difference of univariate
+                                                                                    // polynomials modulo p
+  {
+    BigInteger[] negative = new BigInteger[v.length];
+    for (int i = 0; i < v.length; i++)
+      negative[i] = v[i].negate().mod(p);
+    return add(u, negative, p);
+  }
+
+  private static BigInteger[] derivative(BigInteger[] u, BigInteger p) // returns the derivative of a univariate polynomial modulo p
+  {
+    BigInteger[] w = new BigInteger[Math.max(u.length - 1, 0)];
+    for (int i = 0; i < w.length; i++)
+      w[i] = u[i + 1].multiply(BigInteger.valueOf(i + 1)).mod(p);
+    return trim(w);
+  }
+
+  private static BigInteger[][] divideAndRemainder(BigInteger[] u, BigInteger[] v, BigInteger p) // returns the quotient and the
+                                                                                               // remainder of univariate
+                                                                                               // polynomials modulo p, v nonzero
+  {
+    int dv = v.length - 1;
+    BigInteger[] r = u.clone();
+    BigInteger[] q = new BigInteger[Math.max(u.length - dv, 0)];
+    BigInteger inverse = v[dv].modInverse(p);
+    for (int i = u.length - 1; i >= dv; i--) // the remainder is only reduced modulo p where needed
+    {
+      BigInteger c = r[i].mod(p).multiply(inverse).mod(p);
+      q[i - dv] = c;
+      if (c.signum() != 0)
+        for (int t = 0; t < dv; t++)
+          r[i - dv + t] = r[i - dv + t].subtract(c.multiply(v[t]));
+    }
+    BigInteger[] remainder = Arrays.copyOf(r, Math.min(dv, u.length));
+    for (int i = 0; i < remainder.length; i++)
+      remainder[i] = remainder[i].mod(p);
+    return new BigInteger[][] {trim(q), trim(remainder)};
+  }
+
+  private static BigInteger[] gcd(BigInteger[] u, BigInteger[] v, BigInteger p) // returns the monic gcd of univariate polynomials
+                                                                                // modulo p, or 0 if both are 0
+  {
+    while (v.length > 0)
+    {
+      BigInteger[] r = divideAndRemainder(u, v, p)[1];
+      u = v;
+      v = r;
+    }
+    if (u.length == 0)
+      return u;
+    BigInteger inverse = u[u.length - 1].modInverse(p);
+    BigInteger[] monic = new BigInteger[u.length];
+    for (int i = 0; i < u.length; i++)
+      monic[i] = u[i].multiply(inverse).mod(p);
+    return monic;
+  }
+
+  private static BigInteger[] inverse(BigInteger[] v, BigInteger[] m, BigInteger p) // returns the inverse of v modulo a univariate
+                                                                                    // polynomial m coprime to it, modulo p
+  {
+    BigInteger[] r0 = m;
+    BigInteger[] r1 = divideAndRemainder(v, m, p)[1];
+    BigInteger[] s0 = new BigInteger[0];
+    BigInteger[] s1 = {BigInteger.ONE};
+    while (r1.length > 1)
+    {
+      BigInteger[][] qr = divideAndRemainder(r0, r1, p);
+      BigInteger[] s2 = subtract(s0, multiply(qr[0], s1, p), p);
+      r0 = r1;
+      r1 = qr[1];
+      s0 = s1;
+      s1 = s2;
+    }
+    return multiply(s1, new BigInteger[] {r1[0].modInverse(p)}, p);
+  }
+
+  private static BigInteger[] power(BigInteger[] u, BigInteger n, BigInteger[] m, BigInteger p) // returns u^n modulo a univariate
+                                                                                               // polynomial m of positive degree
+                                                                                               // and p
+  {
+    BigInteger[] result = {BigInteger.ONE};
+    for (int i = n.bitLength() - 1; i >= 0; i--)
+    {
+      result = divideAndRemainder(multiply(result, result, p), m, p)[1];
+      if (n.testBit(i))
+        result = divideAndRemainder(multiply(result, u, p), m, p)[1];
+    }
+    return result;
+  }
+
+  private static BigInteger[] trim(BigInteger[] u) // returns u without its leading zero coefficients
+  {
+    int length = u.length;
+    while (length > 0 && u[length - 1].signum() == 0)
+      length--;
+    return length == u.length ? u : Arrays.copyOf(u, length);
+  }
+
+  private static void addMultiple(TreeMap<Long, BigInteger> p, TreeMap<Long, BigInteger> g, BigInteger c, long m) // adds c * m * g to p
+  {
+    for (Map.Entry<Long, BigInteger> e : g.entrySet())
+    {
+      long key = times(e.getKey(), m);
+      BigInteger sum = e.getValue().multiply(c);
+      BigInteger old = p.get(key);
+      if (old != null)
+        sum = sum.add(old);
+      if (sum.signum() == 0)
+        p.remove(key);
+      else
+        p.put(key, sum);
+    }
+  }
+
+  private static void scale(TreeMap<Long, BigInteger> p, BigInteger c) // multiplies every coefficient of p by c
+  {
+    for (Map.Entry<Long, BigInteger> e : p.entrySet())
+      e.setValue(e.getValue().multiply(c));
+  }
+
+  private static void divide(TreeMap<Long, BigInteger> p, BigInteger c) // divides every coefficient of p by c, which divides them
+                                                                         // all, unless c is 0 or 1
+  {
+    if (c.signum() == 0 || c.equals(BigInteger.ONE))
+      return;
+    for (Map.Entry<Long, BigInteger> e : p.entrySet())
+      e.setValue(e.getValue().divide(c));
+  }
+
+  private static BigInteger content(TreeMap<Long, BigInteger> p) // returns the gcd of the coefficients of p, 0 if p is zero
+  {
+    BigInteger gcd = BigInteger.ZERO;
+    for (BigInteger c : p.values())
+    {
+      gcd = gcd.gcd(c);
+      if (gcd.equals(BigInteger.ONE))
+        break;
+    }
+    return gcd;
+  }
+
+  private static TreeMap<Long, BigInteger> terms(HomogenousPolynomial p) // returns the terms of p
+  {
+    TreeMap<Long, BigInteger> terms = new TreeMap<Long, BigInteger>();
+    int d = p.degree();
+    for (int i = 0; i <= d; i++)
+      for (int j = 0; j <= d - i; j++)
+      {
+        BigInteger c = p.coeff(i, j);
+        if (c.signum() != 0)
+          terms.put(monomial(i, j, d - i - j), c);
+      }
+    return terms;
+  }
+
+  private static HomogenousPolynomial polynomial(TreeMap<Long, BigInteger> terms, int d) // returns the degree d polynomial with these
+                                                                                         // terms, with a positive leading coefficient
+  {
+    return polynomial(terms, d, true);
+  }
+
+  private static HomogenousPolynomial polynomial(TreeMap<Long, BigInteger> terms, int d, boolean positive) // returns the degree d
+                                                                                                           // polynomial with these
+                                                                                                           // terms, made to have a
+                                                                                                           // positive leading
+                                                                                                           // coefficient if positive
+  {
+    boolean negate = positive && !terms.isEmpty() && terms.lastEntry().getValue().signum() < 0;
+    BigInteger[][] coeffs = new BigInteger[d + 1][d + 1];
+    for (Map.Entry<Long, BigInteger> e : terms.entrySet())
+    {
+      long m = e.getKey();
+      coeffs[exponentA(m)][exponentB(m)] = negate ? e.getValue().negate() : e.getValue();
+    }
+    for (int i = 0; i <= d; i++)
+      for (int j = 0; j <= d; j++)
+        if (coeffs[i][j] == null)
+          coeffs[i][j] = BigInteger.ZERO;
+    return new HomogenousPolynomial(coeffs).intern();
+  }
+
+  private static long monomial(int i, int j, int k) // returns a^ib^jc^k packed as its degree, then 0xFFFF - k, then 0xFFFF - j, so
+                                                    // that larger longs are larger in the graded reverse lexicographic order
+  {
+    return ((long) (i + j + k) << 32) | ((long) (0xFFFF - k) << 16) | (0xFFFF - j);
+  }
+
+  private static int degree(long m) // returns the degree of a monomial
+  {
+    return (int) (m >>> 32);
+  }
+
+  private static int exponentB(long m) // returns the exponent of b in a monomial
+  {
+    return 0xFFFF - (int) (m & 0xFFFF);
+  }
+
+  private static int exponentC(long m) // returns the exponent of c in a monomial
+  {
+    return 0xFFFF - (int) ((m >>> 16) & 0xFFFF);
+  }
+
+  private static int exponentA(long m) // returns the exponent of a in a monomial
+  {
+    return degree(m) - exponentB(m) - exponentC(m);
+  }
+
+  private static long times(long m1, long m2) // returns the product of two monomials
+  {
+    return monomial(exponentA(m1) + exponentA(m2), exponentB(m1) + exponentB(m2), exponentC(m1) + exponentC(m2));
+  }
+
+  private static long quotient(long m1, long m2) // returns m1 / m2 for a monomial m2 dividing m1
+  {
+    return monomial(exponentA(m1) - exponentA(m2), exponentB(m1) - exponentB(m2), exponentC(m1) - exponentC(m2));
+  }
+
+  private static long lcm(long m1, long m2) // returns the least common multiple of two monomials
+  {
+    return monomial(Math.max(exponentA(m1), exponentA(m2)), Math.max(exponentB(m1), exponentB(m2)), Math.max(exponentC(m1), exponentC(m2)));
+  }
+
+  private static boolean divides(long m1, long m2) // returns whether m1 divides m2
+  {
+    return exponentA(m1) <= exponentA(m2) && exponentB(m1) <= exponentB(m2) && exponentC(m1) <= exponentC(m2);
+  }
+
+  private static boolean coprime(long m1, long m2) // returns whether two monomials share no variable
+  {
+    return Math.min(exponentA(m1), exponentA(m2)) == 0 && Math.min(exponentB(m1), exponentB(m2)) == 0 && Math.min(exponentC(m1), exponentC(m2)) == 0;
+  }
 }
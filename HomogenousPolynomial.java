@@ -1,446 +1,1109 @@
 // a class that represents a homogenous polynomial with integer coefficients in three variables a, b, c
 
+import java.lang.ref.*;
 import java.math.*;
+import java.util.*;
 
 public class HomogenousPolynomial
 {
-  private BigInteger[][] poly; // an array that stores the coefficients of the polynomial
+  private static final int SPARSE_RATIO = 4; // polynomials with fewer than 1 / SPARSE_RATIO of their monomials nonzero are stored sparsely
+  private static final int KRONECKER_DEGREE = 40; // dense products of at least this degree are computed by Kronecker substitution
+  private static final int KRONECKER_BITS = 320; // unless the coefficients of the two factors have more bits than this together
+  private static final int KARATSUBA_LENGTH = 6; // shorter products of packed rows are multiplied term by term
+  private static final Map<HomogenousPolynomial, WeakReference<HomogenousPolynomial>> INTERNED = new WeakHashMap<HomogenousPolynomial, WeakReference<HomogenousPolynomial>>();
+                                                   // the canonical instance of each interned polynomial
+
+  private int degree; // the degree of the polynomial
+  private BigInteger[][] poly; // an array that stores the coefficients of the polynomial, null unless the polynomial is dense
+                        // and has a coefficient that does not fit in a long
                         // poly[i][j] denotes the coefficient of a^ib^jc^(d-i-j)
-                        // where d is the degree of the polynomial
+                        // where d is the degree of the polynomial, only entries with i+j<=d are used
+  private long[][] small; // the coefficients of a dense polynomial whose coefficients all fit in a long, laid out like poly
+                          // null if the polynomial is stored in poly or terms
+  private TreeMap<Integer, BigInteger> terms; // the nonzero coefficients of a sparse polynomial keyed by key(i, j), null if dense
+  private int hash; // the structural hash of the degree and coefficients, computed once when the polynomial is built
+  private boolean interned; // whether this is the canonical instance of its coefficients returned by intern()
+  private volatile long sample; // the cached value at Modular.sample(0), valid once sampled is set
+  private volatile boolean sampled; // whether sample has been computed
+  private volatile CompiledPolynomial compiled; // the polynomial compiled for evaluation, null until first evaluated
 
   public HomogenousPolynomial(int d) // returns a polynomial of degree d with coefficients all 0
   {
-    poly = new BigInteger[d + 1][d + 1];
+    degree = d;
+    terms = new TreeMap<Integer, BigInteger>();
+    hash = computeHash();
   }
 
-  public HomogenousPolynomial(BigInteger[][] poly) // returns a polynomial with coefficients specified by the array
+  public HomogenousPolynomial(BigInteger[][] poly) // returns a polynomial with coefficients specified by the array, which is
+                                                   // copied and left unchanged
   {
     if (poly.length != poly[0].length)
       throw new IllegalArgumentException("number of rows must equal number of columns");
-    else
-      this.poly = poly;
+    int d = poly.length - 1;
+    BigInteger[][] copy = triangle(d);
+    for (int i = 0; i <= d; i++)
+      for (int j = 0; j <= d - i; j++)
+        copy[i][j] = poly[i][j];
+    store(d, copy);
   }
 
   public HomogenousPolynomial(HomogenousPolynomial other) // copy constructor
   {
+    this.degree = other.degree;
     this.poly = other.poly;
+    this.small = other.small;
+    this.terms = other.terms;
+    this.hash = other.hash;
+    this.compiled = other.compiled;
   }
 
-  public HomogenousPolynomial(String polyString) // returns a polynomial given its String form
-                                                 // no spaces between coefficients and terms ordered a,b,c
+  public HomogenousPolynomial(String polyString) // returns a polynomial given its String form, read in a single pass
+                                                 // variables may appear in any order and repeat, spaces are ignored
                                                  // example: a^3-ab^2+3ab^2+7c^3
+                                                 // example: 2 b a - c^2 + a b (same as 3ab-c^2)
                                                  // non-example: a+b^2 (not homogenous)
-                                                 // non-example: a+cb (cb not in order a,b,c and should be bc instead)
-                                                 // non-example: a + b (spacing between terms)
   {
-    String s = addPlusOne(polyString);
-    String[] monomials = s.split("\\+");
-    if (monomials.length == 0)
-      throw new IllegalArgumentException("string cannot be empty");
-    BigInteger[] leadingTerm = coeffPow(monomials[0]);
-    int degree = leadingTerm[1].add(leadingTerm[2].add(leadingTerm[3])).intValue();
-    BigInteger[][] poly = new BigInteger[degree + 1][degree + 1];
-    for (int i = 0; i <= degree; i++)
-      for (int j = 0; j <= degree; j++)
-        poly[i][j] = BigInteger.ZERO;
-    for (int i = 0; i < monomials.length; i++)
+    TreeMap<Integer, BigInteger> parsed = new TreeMap<Integer, BigInteger>();
+    HomogenousPolynomial p = fromTerms(parse(polyString, parsed), parsed);
+    degree = p.degree;
+    poly = p.poly;
+    small = p.small;
+    terms = p.terms;
+    hash = p.hash;
+  }
+
+  private HomogenousPolynomial(int degree, BigInteger[][] poly, long[][] small, TreeMap<Integer, BigInteger> terms) // sets the fields directly
+  {
+    this.degree = degree;
+    this.poly = poly;
+    this.small = small;
+    this.terms = terms;
+    if (poly != null || small != null || terms != null)
+      hash = computeHash();
+  }
+
+  private void store(int d, BigInteger[][] dense) // stores the coefficients in dense (null entries are 0) sparsely, as longs,
+                                                  // or as BigIntegers, whichever is smallest, keeping dense itself with its
+                                                  // null entries set to 0 in the last case
+  {
+    degree = d;
+    int nonzero = 0;
+    boolean fits = true;
+    for (int i = 0; i <= d; i++)
+      for (int j = 0; j <= d - i; j++)
+        if (dense[i][j] != null && dense[i][j].signum() != 0)
+        {
+          nonzero++;
+          fits = fits && dense[i][j].bitLength() < 64;
+        }
+    if (nonzero * SPARSE_RATIO < size(d))
     {
-      BigInteger[] term = coeffPow(monomials[i]);
-      if (term[1].add(term[2].add(term[3])).intValue() != degree)
-        throw new IllegalArgumentException("polynomial must be homogenous");
-      poly[term[1].intValue()][term[2].intValue()] = poly[term[1].intValue()][term[2].intValue()].add(term[0]);
+      terms = new TreeMap<Integer, BigInteger>();
+      for (int i = 0; i <= d; i++)
+        for (int j = 0; j <= d - i; j++)
+          if (dense[i][j] != null && dense[i][j].signum() != 0)
+            terms.put(key(i, j), dense[i][j]);
     }
-    this.poly = poly;
+    else if (fits)
+    {
+      small = triangleLong(d);
+      for (int i = 0; i <= d; i++)
+        for (int j = 0; j <= d - i; j++)
+          if (dense[i][j] != null)
+            small[i][j] = dense[i][j].longValue();
+    }
+    else
+    {
+      for (int i = 0; i <= d; i++)
+        for (int j = 0; j <= d - i; j++)
+          if (dense[i][j] == null)
+            dense[i][j] = BigInteger.ZERO;
+      poly = dense;
+    }
+    hash = computeHash();
   }
 
-  public int degree() // returns the degree of the polynomial
+  private int computeHash() // returns a hash of the degree and the nonzero terms that does not depend on how they are stored
   {
-    return poly.length - 1;
+    int h = degree;
+    if (terms != null)
+    {
+      for (Map.Entry<Integer, BigInteger> e : terms.entrySet())
+        h = 31 * (31 * h + e.getKey()) + hash(e.getValue());
+      return h;
+    }
+    for (int i = 0; i <= degree; i++)
+      for (int j = 0; j <= degree - i; j++)
+        if (small != null && small[i][j] != 0)
+          h = 31 * (31 * h + key(i, j)) + Long.hashCode(small[i][j]);
+        else if (poly != null && poly[i][j].signum() != 0)
+          h = 31 * (31 * h + key(i, j)) + hash(poly[i][j]);
+    return h;
   }
 
-  public HomogenousPolynomial plus(HomogenousPolynomial other) // returns the polynomial sum of this and other
+  private static int hash(BigInteger c) // returns a hash of c that agrees with Long.hashCode for coefficients that fit in a long
   {
-    if (this.degree() != other.degree())
-      throw new IllegalArgumentException("degrees must be the same");
-    BigInteger[][] newPoly = new BigInteger[degree() + 1][degree() + 1];
-    for (int i = 0; i <= degree(); i++)
-      for (int j = 0; j <= degree(); j++)
-        newPoly[i][j] = poly[i][j].add(other.poly[i][j]);
-    return new HomogenousPolynomial(newPoly);
+    return c.bitLength() < 64 ? Long.hashCode(c.longValue()) : c.hashCode();
   }
 
-  public HomogenousPolynomial times(BigInteger c) // returns the product of the polynomial and an integer c
+  private static HomogenousPolynomial fromDense(int d, BigInteger[][] dense) // returns the polynomial with coefficients dense
   {
-    BigInteger[][] newPoly = new BigInteger[degree() + 1][degree() + 1];
-    for (int i = 0; i <= degree(); i++)
-      for (int j = 0; j <= degree(); j++)
-        newPoly[i][j] = c.multiply(poly[i][j]);
-    return new HomogenousPolynomial(newPoly);
+    HomogenousPolynomial p = new HomogenousPolynomial(d, null, null, null);
+    p.store(d, dense);
+    return p;
   }
 
-  public HomogenousPolynomial div(BigInteger c) // returns the quotient of the polynomial and an integer c
+  private static HomogenousPolynomial fromSmall(int d, long[][] small) // returns the polynomial with coefficients small
   {
-    BigInteger[][] newPoly = new BigInteger[degree() + 1][degree() + 1];
-    for (int i = 0; i <= degree(); i++)
-      for (int j = 0; j <= degree(); j++)
-        newPoly[i][j] = poly[i][j].divide(c);
-    return new HomogenousPolynomial(newPoly);
+    int nonzero = 0;
+    for (int i = 0; i <= d; i++)
+      for (int j = 0; j <= d - i; j++)
+        if (small[i][j] != 0)
+          nonzero++;
+    if (nonzero * SPARSE_RATIO >= size(d))
+      return new HomogenousPolynomial(d, null, small, null);
+    TreeMap<Integer, BigInteger> terms = new TreeMap<Integer, BigInteger>();
+    for (int i = 0; i <= d; i++)
+      for (int j = 0; j <= d - i; j++)
+        if (small[i][j] != 0)
+          terms.put(key(i, j), BigInteger.valueOf(small[i][j]));
+    return new HomogenousPolynomial(d, null, null, terms);
   }
 
-  public BigInteger gcd() // returns the gcd of the coefficients of the polynomial, defined to be 0 if all coefficients are 0
+  private static HomogenousPolynomial fromTerms(int d, TreeMap<Integer, BigInteger> terms) // returns the polynomial with nonzero terms
   {
-    BigInteger gcd = BigInteger.ZERO;
-    for (int i = 0; i <= degree(); i++)
-      for (int j = 0; j <= degree(); j++)
-        gcd = gcd.gcd(poly[i][j]);
-    return gcd;
+    if (terms.size() * SPARSE_RATIO < size(d))
+      return new HomogenousPolynomial(d, null, null, terms);
+    BigInteger[][] dense = triangle(d);
+    for (Map.Entry<Integer, BigInteger> e : terms.entrySet())
+      dense[e.getKey() >>> 16][e.getKey() & 0xFFFF] = e.getValue();
+    return fromDense(d, dense);
   }
 
-  public HomogenousPolynomial minus(HomogenousPolynomial other) // returns the polynomial difference between this and other
+  private static BigInteger[][] triangle(int d) // returns an empty triangular array holding the coefficients of a degree d polynomial
   {
-    return plus(other.times(new BigInteger("-1")));
+    BigInteger[][] t = new BigInteger[d + 1][];
+    for (int i = 0; i <= d; i++)
+      t[i] = new BigInteger[d + 1 - i];
+    return t;
   }
 
-  public HomogenousPolynomial times(HomogenousPolynomial other) // returns the polynomial product of this and other
+  private static long[][] triangleLong(int d) // returns a zero triangular array holding the coefficients of a degree d polynomial
   {
-    BigInteger[][] newPoly = new BigInteger[degree() + other.degree() + 1][degree() + other.degree() + 1];
-    for (int i = 0; i < newPoly.length; i++)
-      for (int j = 0; j < newPoly.length; j++)
-        newPoly[i][j] = BigInteger.ZERO;
-    for (int i1 = degree() + 1; i1 >= 0; i1--)
-      for (int j1 = degree() - i1; j1 >= 0; j1--)
-        for (int i2 = other.degree() + 1; i2 >= 0; i2--)
-          for (int j2 = other.degree() - i2; j2 >= 0; j2--)
-            newPoly[i1 + i2][j1 + j2] = newPoly[i1 + i2][j1 + j2].add(poly[i1][j1].multiply(other.poly[i2][j2]));
-    return new HomogenousPolynomial(newPoly);
+    long[][] t = new long[d + 1][];
+    for (int i = 0; i <= d; i++)
+      t[i] = new long[d + 1 - i];
+    return t;
   }
 
-  public HomogenousPolynomial pow(int p) // returns the polynomial raised to the pth power
+  private static int size(int d) // returns the number of monomials of degree d
   {
-    if (p < 1)
-      throw new IllegalArgumentException("power must be positive integer");
-    if (p == 1)
-      return new HomogenousPolynomial(this);
-    return times(pow(p - 1));
+    return (d + 1) * (d + 2) / 2;
   }
 
-  public HomogenousVector times(HomogenousVector v) // returns the product of the polynomial by a HomogenousVector
+  private static int key(int i, int j) // packs the exponents of a and b of a^ib^jc^(d-i-j) into a key for terms
   {
-    return v.times(this);
+    return (i << 16) | j;
   }
 
-  public boolean equalsZero() // returns wehther the polynomial is the zero polynomial, i.e. has all coefficients 0
+  private static long gcd(long a, long b) // returns the gcd of two nonnegative longs
   {
-    for (int i = 0; i <= degree(); i++)
-      for (int j = 0; j <= degree(); j++)
-        if (!poly[i][j].equals(BigInteger.ZERO))
-          return false;
-    return true;
+    while (b != 0)
+    {
+      long r = a % b;
+      a = b;
+      b = r;
+    }
+    return a;
   }
 
-  public boolean equals(HomogenousPolynomial other) // returns whether the polynomial has the same coefficients as other
+  public BigInteger coeff(int i, int j) // returns the coefficient of a^ib^jc^(d-i-j)
   {
-    return minus(other).equalsZero();
+    if (small != null)
+      return BigInteger.valueOf(small[i][j]);
+    if (poly != null)
+      return poly[i][j];
+    BigInteger c = terms.get(key(i, j));
+    return c == null ? BigInteger.ZERO : c;
   }
 
-  public BigInteger eval(BigInteger a, BigInteger b, BigInteger c)
+  private BigInteger[][] bigPoly() // returns the coefficients of a dense polynomial as BigIntegers
   {
-    BigInteger p = BigInteger.ZERO;
-    for (int i = 0; i <= degree(); i++)
-      for (int j = 0; j <= degree() - i; j++)
-      p = p.add(a.pow(i).multiply(b.pow(j)).multiply(c.pow(degree() - i - j)).multiply(poly[i][j]));
-    return p;
+    if (poly != null)
+      return poly;
+    BigInteger[][] big = triangle(degree);
+    for (int i = 0; i <= degree; i++)
+      for (int j = 0; j <= degree - i; j++)
+        big[i][j] = BigInteger.valueOf(small[i][j]);
+    return big;
   }
 
-  public BigDecimal eval(BigDecimal a, BigDecimal b, BigDecimal c)
+  private int[] keys() // returns the keys of the nonzero terms of the polynomial, in the same order as values()
   {
-    BigDecimal p = BigDecimal.ZERO;
-    for (int i = 0; i <= degree(); i++)
-      for (int j = 0; j <= degree() - i; j++)
-      p = p.add(a.pow(i).multiply(b.pow(j)).multiply(c.pow(degree() - i - j)).multiply(new BigDecimal(poly[i][j])));
-    return p;
+    if (terms != null)
+    {
+      int[] k = new int[terms.size()];
+      int n = 0;
+      for (int key : terms.keySet())
+        k[n++] = key;
+      return k;
+    }
+    int n = 0;
+    for (int i = 0; i <= degree; i++)
+      for (int j = 0; j <= degree - i; j++)
+        if (small != null ? small[i][j] != 0 : poly[i][j].signum() != 0)
+          n++;
+    int[] k = new int[n];
+    n = 0;
+    for (int i = 0; i <= degree; i++)
+      for (int j = 0; j <= degree - i; j++)
+        if (small != null ? small[i][j] != 0 : poly[i][j].signum() != 0)
+          k[n++] = key(i, j);
+    return k;
   }
 
-  public String toString() // returns the String form of the polynomial, ordered lexicographically as a>b>c
+  private BigInteger[] values() // returns the nonzero coefficients of the polynomial, in the same order as keys()
   {
-    String polyString = "";
-    int d = this.degree();
-    for (int i = d + 1; i >= 0; i--)
-      for (int j = d - i; j >= 0; j--)
-        if (poly[i][j] != BigInteger.ZERO)
-          polyString += "+" + poly[i][j] + "a^" + i + "b^" + j + "c^" + (d - i - j);
-    if (polyString.equals(""))
-      return "0";
-    polyString = polyString.replace("+-", "-");
-    polyString = polyString.replace("a^0", "");
-    polyString = polyString.replace("b^0", "");
-    polyString = polyString.replace("c^0", "");
-    polyString = polyString.replace("+1a", "+a");
-    polyString = polyString.replace("-1a", "-a");
-    polyString = polyString.replace("+1b", "+b");
-    polyString = polyString.replace("-1b", "-b");
-    polyString = polyString.replace("+1c", "+c");
-    polyString = polyString.replace("-1c", "-c");
-    int index = polyString.indexOf("a^1");
-    while (index >= 0)
+    if (terms != null)
+      return terms.values().toArray(new BigInteger[terms.size()]);
+    ArrayList<BigInteger> v = new ArrayList<BigInteger>();
+    for (int i = 0; i <= degree; i++)
+      for (int j = 0; j <= degree - i; j++)
+        if (small != null && small[i][j] != 0)
+          v.add(BigInteger.valueOf(small[i][j]));
+        else if (poly != null && poly[i][j].signum() != 0)
+          v.add(poly[i][j]);
+    return v.toArray(new BigInteger[v.size()]);
+  }
+
+  public boolean isSparse() // returns whether the polynomial is stored sparsely
+  {
+    return terms != null;
+  }
+
+  public boolean isSmall() // returns whether the polynomial is stored densely with long coefficients
+  {
+    return small != null;
+  }
+
+  public int degree() // returns the degree of the polynomial
+  {
+    return degree;
+  }
+
+  public HomogenousPolynomial plus(HomogenousPolynomial other) // returns the polynomial sum of this and other
+  {
+    if (this.degree() != other.degree())
+      throw new IllegalArgumentException("degrees must be the same");
+    if (small != null && other.small != null)
     {
-      if (index + 3 >= polyString.length())
-        polyString = polyString.substring(0, index + 1);
-      else if ("1234567890".indexOf(polyString.charAt(index + 3)) == -1)
-        polyString = polyString.substring(0, index + 1) + polyString.substring(index + 3);
-      index = polyString.indexOf("a^1", index + 1);
+      try
+      {
+        long[][] newSmall = triangleLong(degree);
+        for (int i = 0; i <= degree; i++)
+          for (int j = 0; j <= degree - i; j++)
+            newSmall[i][j] = Math.addExact(small[i][j], other.small[i][j]);
+        return fromSmall(degree, newSmall);
+      }
+      catch (ArithmeticException e)
+      {
+        // a coefficient overflowed, so add as BigIntegers below
+      }
+    }
+    if (terms != null && other.terms != null)
+    {
+      TreeMap<Integer, BigInteger> newTerms = new TreeMap<Integer, BigInteger>(terms);
+      for (Map.Entry<Integer, BigInteger> e : other.terms.entrySet())
+      {
+        BigInteger sum = e.getValue().add(coeff(e.getKey() >>> 16, e.getKey() & 0xFFFF));
+        if (sum.signum() == 0)
+          newTerms.remove(e.getKey());
+        else
+          newTerms.put(e.getKey(), sum);
+      }
+      return fromTerms(degree, newTerms);
     }
-    index = polyString.indexOf("b^1");
-    while (index >= 0)
+    BigInteger[][] newPoly = triangle(degree);
+    if (terms == null && other.terms == null)
     {
-      if (index + 3 >= polyString.length())
-        polyString = polyString.substring(0, index + 1);
-      else if ("1234567890".indexOf(polyString.charAt(index + 3)) == -1)
-        polyString = polyString.substring(0, index + 1) + polyString.substring(index + 3);
-      index = polyString.indexOf("b^1", index + 1);
+      BigInteger[][] poly1 = bigPoly();
+      BigInteger[][] poly2 = other.bigPoly();
+      for (int i = 0; i <= degree; i++)
+        for (int j = 0; j <= degree - i; j++)
+          newPoly[i][j] = poly1[i][j].add(poly2[i][j]);
+      return fromDense(degree, newPoly);
     }
-    index = polyString.indexOf("c^1");
-    while (index >= 0)
+    HomogenousPolynomial dense = terms == null ? this : other;
+    HomogenousPolynomial sparse = terms == null ? other : this;
+    BigInteger[][] densePoly = dense.bigPoly();
+    for (int i = 0; i <= degree; i++)
+      for (int j = 0; j <= degree - i; j++)
+        newPoly[i][j] = densePoly[i][j];
+    for (Map.Entry<Integer, BigInteger> e : sparse.terms.entrySet())
     {
-      if (index + 3 >= polyString.length())
-        polyString = polyString.substring(0, index + 1);
-      else if ("1234567890".indexOf(polyString.charAt(index + 3)) == -1)
-        polyString = polyString.substring(0, index + 1) + polyString.substring(index + 3);
-      index = polyString.indexOf("c^1", index + 1);
+      int i = e.getKey() >>> 16;
+      int j = e.getKey() & 0xFFFF;
+      newPoly[i][j] = newPoly[i][j].add(e.getValue());
     }
-    if (polyString.charAt(0) == '+')
-      polyString = polyString.substring(1);
-    return polyString;
+    return fromDense(degree, newPoly);
   }
 
-  private static String addPlus(String polyString) // private helper method for toString(), adds + between each term
+  public HomogenousPolynomial times(BigInteger c) // returns the product of the polynomial and an integer c
   {
-    String s = polyString;
-    int index = s.indexOf("-");
-    if (index == -1)
-      return s;
-    while (index >= 0)
+    if (c.signum() == 0)
+      return new HomogenousPolynomial(degree);
+    if (terms != null)
+    {
+      TreeMap<Integer, BigInteger> newTerms = new TreeMap<Integer, BigInteger>();
+      for (Map.Entry<Integer, BigInteger> e : terms.entrySet())
+        newTerms.put(e.getKey(), c.multiply(e.getValue()));
+      return new HomogenousPolynomial(degree, null, null, newTerms);
+    }
+    if (small != null && c.bitLength() < 64)
     {
-      s = s.substring(0, index) + "+" + s.substring(index);
-      index = s.indexOf("-", index + 2);
+      try
+      {
+        long l = c.longValue();
+        long[][] newSmall = triangleLong(degree);
+        for (int i = 0; i <= degree; i++)
+          for (int j = 0; j <= degree - i; j++)
+            newSmall[i][j] = Math.multiplyExact(l, small[i][j]);
+        return new HomogenousPolynomial(degree, null, newSmall, null);
+      }
+      catch (ArithmeticException e)
+      {
+        // a coefficient overflowed, so multiply as BigIntegers below
+      }
     }
-    return s;
+    BigInteger[][] oldPoly = bigPoly();
+    BigInteger[][] newPoly = triangle(degree);
+    for (int i = 0; i <= degree; i++)
+      for (int j = 0; j <= degree - i; j++)
+        newPoly[i][j] = c.multiply(oldPoly[i][j]);
+    return fromDense(degree, newPoly);
   }
 
-  private static String addPlusOne(String polyString) // private helper method for toString(), adds coefficients of 1 and -1
+  public HomogenousPolynomial div(BigInteger c) // returns the quotient of the polynomial and an integer c
   {
-    if (polyString.length() == 0)
-      throw new IllegalArgumentException("string cannot be empty");
-    String s = addPlus(polyString);
-    if ("abc".indexOf(s.charAt(0)) != -1)
-      s = 1 + s;
-    int index = s.indexOf("+a");
-    if (index >= 0)
+    if (terms != null)
     {
-      while (index >= 0)
+      TreeMap<Integer, BigInteger> newTerms = new TreeMap<Integer, BigInteger>();
+      for (Map.Entry<Integer, BigInteger> e : terms.entrySet())
       {
-        s = s.substring(0, index) + "+1a" + s.substring(index + 2);
-        index = s.indexOf("+a");
+        BigInteger q = e.getValue().divide(c);
+        if (q.signum() != 0)
+          newTerms.put(e.getKey(), q);
       }
+      return new HomogenousPolynomial(degree, null, null, newTerms);
     }
-    index = s.indexOf("+b");
-    if (index >= 0)
+    if (small != null && c.bitLength() < 64)
     {
-      while (index >= 0)
+      try
       {
-        s = s.substring(0, index) + "+1b" + s.substring(index + 2);
-        index = s.indexOf("+b");
+        long l = c.longValue();
+        long[][] newSmall = triangleLong(degree);
+        for (int i = 0; i <= degree; i++)
+          for (int j = 0; j <= degree - i; j++)
+            newSmall[i][j] = l == -1 ? Math.negateExact(small[i][j]) : small[i][j] / l;
+        return fromSmall(degree, newSmall);
+      }
+      catch (ArithmeticException e)
+      {
+        if (c.signum() == 0)
+          throw e;
+        // a coefficient overflowed, so divide as BigIntegers below
       }
     }
-    index = s.indexOf("+c");
-    if (index >= 0)
+    BigInteger[][] newPoly = triangle(degree);
+    for (int i = 0; i <= degree; i++)
+      for (int j = 0; j <= degree - i; j++)
+        newPoly[i][j] = coeff(i, j).divide(c);
+    return fromDense(degree, newPoly);
+  }
+
+  public HomogenousPolynomial[] divide(HomogenousPolynomial other) // returns the quotient q and remainder r with this = q other + r,
+                                                                   // dividing leading terms in the lexicographic order a > b > c
+                                                                   // as integers, so that r is 0 exactly when other divides this
+                                                                   // and no term of r is a multiple of the leading term of other
+                                                                   // with a coefficient at least its leading coefficient
+                                                                   // if other has the higher degree, q is 0 of degree 0 and r is this
+  {
+    HomogenousPolynomial[] qr = new HomogenousPolynomial[2];
+    divide(other, qr);
+    return qr;
+  }
+
+  public HomogenousPolynomial divideExact(HomogenousPolynomial other) // returns this / other, or null as soon as a term shows that
+                                                                     // other does not divide this, which it cannot if it has the
+                                                                     // higher degree unless this is 0
+  {
+    return divide(other, null);
+  }
+
+  private HomogenousPolynomial divide(HomogenousPolynomial other, HomogenousPolynomial[] qr) // returns the quotient of this by
+                             // other, storing it and the remainder in qr, or if qr is null returns null once a remainder appears
+  {
+    if (other.equalsZero())
+      throw new IllegalArgumentException("cannot divide by 0");
+    if (other.degree > degree)
     {
-      while (index >= 0)
+      if (qr != null)
       {
-        s = s.substring(0, index) + "+1c" + s.substring(index + 2);
-        index = s.indexOf("+c");
+        qr[0] = new HomogenousPolynomial(0);
+        qr[1] = this;
       }
+      return qr != null || equalsZero() ? new HomogenousPolynomial(0) : null;
+    }
+    int[] divisorKeys = other.keys();
+    BigInteger[] divisorValues = other.values();
+    int lead = divisorKeys[divisorKeys.length - 1];
+    BigInteger lc = divisorValues[divisorValues.length - 1];
+    int leadI = lead >>> 16;
+    int leadJ = lead & 0xFFFF;
+    int leadK = other.degree - leadI - leadJ;
+    TreeMap<Integer, BigInteger> rest = new TreeMap<Integer, BigInteger>();
+    int[] k = keys();
+    BigInteger[] v = values();
+    for (int n = 0; n < k.length; n++)
+      rest.put(k[n], v[n]);
+    TreeMap<Integer, BigInteger> quotient = new TreeMap<Integer, BigInteger>();
+    TreeMap<Integer, BigInteger> remainder = new TreeMap<Integer, BigInteger>();
+    while (!rest.isEmpty())
+    {
+      Map.Entry<Integer, BigInteger> lt = rest.lastEntry();
+      int i = lt.getKey() >>> 16;
+      int j = lt.getKey() & 0xFFFF;
+      BigInteger[] cr = i >= leadI && j >= leadJ && degree - i - j >= leadK ? lt.getValue().divideAndRemainder(lc) : new BigInteger[] {BigInteger.ZERO, lt.getValue()};
+      if (cr[1].signum() != 0)
+      {
+        if (qr == null)
+          return null;
+        remainder.put(lt.getKey(), cr[1]);
+        rest.remove(lt.getKey());
+      }
+      if (cr[0].signum() != 0)
+      {
+        int shift = key(i - leadI, j - leadJ);
+        quotient.put(shift, cr[0]);
+        for (int n = 0; n < divisorKeys.length; n++) // subtracts the quotient term times other, leaving only the remainder of the
+                                                     // leading coefficient, which was moved to remainder above
+        {
+          int key = divisorKeys[n] + shift;
+          BigInteger c = n == divisorKeys.length - 1 ? BigInteger.ZERO : rest.getOrDefault(key, BigInteger.ZERO).subtract(cr[0].multiply(divisorValues[n]));
+          if (c.signum() == 0)
+            rest.remove(key);
+          else
+            rest.put(key, c);
+        }
+      }
+    }
+    HomogenousPolynomial q = fromTerms(degree - other.degree, quotient);
+    if (qr != null)
+    {
+      qr[0] = q;
+      qr[1] = fromTerms(degree, remainder);
     }
-    index = s.indexOf("-a");
-    if (index >= 0)
+    return q;
+  }
+
+  public BigInteger gcd() // returns the gcd of the coefficients of the polynomial, defined to be 0 if all coefficients are 0
+  {
+    BigInteger gcd = BigInteger.ZERO;
+    if (small != null)
+    {
+      long g = 0;
+      boolean fits = true;
+      for (int i = 0; i <= degree; i++)
+        for (int j = 0; j <= degree - i; j++)
+          if (small[i][j] == Long.MIN_VALUE)
+            fits = false;
+          else
+            g = gcd(g, Math.abs(small[i][j]));
+      if (fits)
+        return BigInteger.valueOf(g);
+    }
+    if (terms != null)
+    {
+      for (BigInteger c : terms.values())
+        gcd = gcd.gcd(c);
+      return gcd;
+    }
+    for (int i = 0; i <= degree; i++)
+      for (int j = 0; j <= degree - i; j++)
+        gcd = gcd.gcd(coeff(i, j));
+    return gcd;
+  }
+
+  public HomogenousPolynomial minus(HomogenousPolynomial other) // returns the polynomial difference between this and other
+  {
+    return plus(other.times(new BigInteger("-1")));
+  }
+
+  public HomogenousPolynomial times(HomogenousPolynomial other) // returns the polynomial product of this and other
+                                                                // by multiplying each pair of nonzero terms
+  {
+    int d = degree + other.degree;
+    if (small != null && other.small != null)
     {
-      while (index >= 0)
+      try
       {
-        s = s.substring(0, index) + "-1a" + s.substring(index + 2);
-        index = s.indexOf("-a");
+        long[][] newSmall = triangleLong(d);
+        for (int i1 = 0; i1 <= degree; i1++)
+          for (int j1 = 0; j1 <= degree - i1; j1++)
+            if (small[i1][j1] != 0)
+              for (int i2 = 0; i2 <= other.degree; i2++)
+                for (int j2 = 0; j2 <= other.degree - i2; j2++)
+                  if (other.small[i2][j2] != 0)
+                    newSmall[i1 + i2][j1 + j2] = Math.addExact(newSmall[i1 + i2][j1 + j2], Math.multiplyExact(small[i1][j1], other.small[i2][j2]));
+        return fromSmall(d, newSmall);
+      }
+      catch (ArithmeticException e)
+      {
+        // a coefficient overflowed, so multiply as BigIntegers below
       }
     }
-    index = s.indexOf("-b");
-    if (index >= 0)
+    if (d >= KRONECKER_DEGREE && terms == null && other.terms == null)
     {
-      while (index >= 0)
+      int bits1 = coeffBits();
+      int bits2 = other.coeffBits();
+      if (bits1 + bits2 <= KRONECKER_BITS)
+        return kronecker(other, bits1, bits2);
+    }
+    BigInteger[][] newPoly = triangle(d);
+    int[] keys1 = keys();
+    int[] keys2 = other.keys();
+    BigInteger[] values1 = values();
+    BigInteger[] values2 = other.values();
+    for (int k1 = 0; k1 < keys1.length; k1++)
+    {
+      int i1 = keys1[k1] >>> 16;
+      int j1 = keys1[k1] & 0xFFFF;
+      for (int k2 = 0; k2 < keys2.length; k2++)
       {
-        s = s.substring(0, index) + "-1b" + s.substring(index + 2);
-        index = s.indexOf("-b");
+        int i = i1 + (keys2[k2] >>> 16);
+        int j = j1 + (keys2[k2] & 0xFFFF);
+        BigInteger product = values1[k1].multiply(values2[k2]);
+        newPoly[i][j] = newPoly[i][j] == null ? product : newPoly[i][j].add(product);
       }
     }
-    index = s.indexOf("-c");
-    if (index >= 0)
+    return fromDense(d, newPoly);
+  }
+
+  private HomogenousPolynomial kronecker(HomogenousPolynomial other, int bits1, int bits2) // returns the product of this and other by Kronecker
+                                                                    // substitution in b, packing the terms a^ib^jc^(d-i-j)
+                                                                    // for each i into one big integer with the coefficient
+                                                                    // for j in bits [js, (j+1)s), and multiplying the rows
+  {
+    int d = degree + other.degree;
+    int slot = Math.max(bits1, 1) + Math.max(bits2, 1) + 33 - Integer.numberOfLeadingZeros(Math.min(size(degree), size(other.degree)));
+    BigInteger[] rows1 = new BigInteger[degree + 1];
+    BigInteger[] rows2 = new BigInteger[other.degree + 1];
+    for (int i = 0; i <= degree; i++)
+      rows1[i] = packRow(i, slot);
+    for (int i = 0; i <= other.degree; i++)
+      rows2[i] = other.packRow(i, slot);
+    BigInteger[] rows = karatsuba(rows1, 0, rows1.length, rows2, 0, rows2.length);
+    BigInteger[][] newPoly = triangle(d);
+    for (int i = 0; i <= d; i++)
+      unpackRow(rows[i], slot, newPoly[i]);
+    return fromDense(d, newPoly);
+  }
+
+  private static BigInteger[] karatsuba(BigInteger[] u, int uStart, int uLength, BigInteger[] v, int vStart, int vLength)
+                                       // returns the coefficients of the product of the polynomials in one variable with
+                                       // coefficients u[uStart..uStart+uLength) and v[vStart..vStart+vLength)
+  {
+    BigInteger[] w = new BigInteger[uLength + vLength - 1];
+    Arrays.fill(w, BigInteger.ZERO);
+    if (uLength < KARATSUBA_LENGTH || vLength < KARATSUBA_LENGTH)
+    {
+      for (int i = 0; i < uLength; i++)
+        if (u[uStart + i].signum() != 0)
+          for (int j = 0; j < vLength; j++)
+            w[i + j] = w[i + j].add(u[uStart + i].multiply(v[vStart + j]));
+      return w;
+    }
+    int h = Math.min(uLength, vLength) / 2; // split u = u0 + x^h u1 and v = v0 + x^h v1
+    BigInteger[] low = karatsuba(u, uStart, h, v, vStart, h);
+    BigInteger[] high = karatsuba(u, uStart + h, uLength - h, v, vStart + h, vLength - h);
+    BigInteger[] uSum = new BigInteger[uLength - h];
+    BigInteger[] vSum = new BigInteger[vLength - h];
+    for (int i = 0; i < uSum.length; i++)
+      uSum[i] = i < h ? u[uStart + i].add(u[uStart + h + i]) : u[uStart + h + i];
+    for (int i = 0; i < vSum.length; i++)
+      vSum[i] = i < h ? v[vStart + i].add(v[vStart + h + i]) : v[vStart + h + i];
+    BigInteger[] middle = karatsuba(uSum, 0, uSum.length, vSum, 0, vSum.length); // (u0 + u1)(v0 + v1)
+    for (int i = 0; i < low.length; i++)
+    {
+      w[i] = w[i].add(low[i]);
+      middle[i] = middle[i].subtract(low[i]);
+    }
+    for (int i = 0; i < high.length; i++)
+    {
+      w[i + 2 * h] = w[i + 2 * h].add(high[i]);
+      middle[i] = middle[i].subtract(high[i]);
+    }
+    for (int i = 0; i < middle.length; i++)
+      w[i + h] = w[i + h].add(middle[i]);
+    return w;
+  }
+
+  public int coeffBits() // returns the largest bit length of the absolute values of the coefficients
+  {
+    int bits = 0;
+    if (small != null)
+    {
+      for (int i = 0; i <= degree; i++)
+        for (int j = 0; j <= degree - i; j++)
+          bits = Math.max(bits, small[i][j] == Long.MIN_VALUE ? 64 : 64 - Long.numberOfLeadingZeros(Math.abs(small[i][j])));
+      return bits;
+    }
+    for (BigInteger c : values())
+      bits = Math.max(bits, c.abs().bitLength());
+    return bits;
+  }
+
+  private BigInteger packRow(int i, int slot) // returns the sum of the coefficients of a^ib^jc^(d-i-j) times 2^(j * slot)
+  {
+    byte[] positive = new byte[((degree - i + 1) * slot + 7) / 8 + 1]; // little endian
+    byte[] negative = new byte[positive.length];
+    for (int j = 0; j <= degree - i; j++)
     {
-      while (index >= 0)
+      BigInteger c = coeff(i, j);
+      if (c.signum() == 0)
+        continue;
+      byte[] magnitude = c.abs().toByteArray();
+      byte[] target = c.signum() > 0 ? positive : negative;
+      int bit = j * slot;
+      for (int k = 0; k < magnitude.length; k++)
       {
-        s = s.substring(0, index) + "-1c" + s.substring(index + 2);
-        index = s.indexOf("-c");
+        int v = magnitude[magnitude.length - 1 - k] & 0xFF;
+        int index = (bit >>> 3) + k;
+        target[index] |= v << (bit & 7);
+        if ((bit & 7) != 0 && v >>> (8 - (bit & 7)) != 0)
+          target[index + 1] |= v >>> (8 - (bit & 7));
       }
     }
-    if (s.charAt(0) == '+')
-      s = s.substring(1);
-    return s;
-  }
-
-  private static BigInteger[] coeffPow(String monomial) // private helper method for toString(), returns coefficient and powers of a monomial
-  {
-    int aIndex = monomial.indexOf("a");
-    int bIndex = monomial.indexOf("b");
-    int cIndex = monomial.indexOf("c");
-    if ((aIndex >= 0 && bIndex >= 0 && aIndex > bIndex) || (bIndex >= 0 && cIndex >= 0 && bIndex > cIndex) || (aIndex >= 0 && cIndex >= 0 && aIndex > cIndex))
-      throw new IllegalArgumentException("monomial must be of form Ia^Nb^Nc^N where I is an integer, N is nonnegative integer");
-    BigInteger coeffLong = BigInteger.ZERO;
-    BigInteger aPow = BigInteger.ZERO;
-    BigInteger bPow = BigInteger.ZERO;
-    BigInteger cPow = BigInteger.ZERO;
-    String coeff = "";
-    String a = "";
-    String b = "";
-    String c = "";
-    if (aIndex == -1)
-    {
-      if (bIndex == -1)
+    return new BigInteger(1, reverse(positive)).subtract(new BigInteger(1, reverse(negative)));
+  }
+
+  private static void unpackRow(BigInteger row, int slot, BigInteger[] coeffs) // stores the signed coefficients of
+                                                                               // 2^(j * slot) in row into coeffs[j]
+  {
+    byte[] bytes = row.toByteArray(); // big endian two's complement
+    byte sign = (byte) (row.signum() < 0 ? -1 : 0);
+    BigInteger full = BigInteger.ONE.shiftLeft(slot);
+    byte[] digit = new byte[(slot + 7) / 8 + 1]; // big endian with a leading zero byte
+    int carry = 0;
+    for (int j = 0; j < coeffs.length; j++)
+    {
+      int bit = j * slot;
+      for (int k = 0; k < digit.length - 1; k++)
       {
-        if (cIndex == -1)
-          coeff = monomial;
-        else
-        {
-          coeff = monomial.substring(0, cIndex);
-          c = monomial.substring(cIndex);
-        }
+        int index = (bit >>> 3) + k;
+        int low = index < bytes.length ? bytes[bytes.length - 1 - index] & 0xFF : sign & 0xFF;
+        int high = index + 1 < bytes.length ? bytes[bytes.length - 2 - index] & 0xFF : sign & 0xFF;
+        int v = ((low >>> (bit & 7)) | (high << (8 - (bit & 7)))) & 0xFF;
+        if (8 * (k + 1) > slot)
+          v &= (1 << (slot - 8 * k)) - 1;
+        digit[digit.length - 1 - k] = (byte) v;
       }
-      else
+      BigInteger c = new BigInteger(digit);
+      if (carry != 0)
+        c = c.add(BigInteger.ONE);
+      carry = 0;
+      if (c.bitLength() >= slot)
       {
-        if (cIndex == -1)
-        {
-          coeff = monomial.substring(0, bIndex);
-          b = monomial.substring(bIndex);
-        }
-        else
-        {
-          coeff = monomial.substring(0, bIndex);
-          b = monomial.substring(bIndex, cIndex);
-          c = monomial.substring(cIndex);
-        }
+        c = c.subtract(full);
+        carry = 1;
       }
+      coeffs[j] = c;
     }
+  }
+
+  private static byte[] reverse(byte[] bytes) // returns the bytes in reverse order
+  {
+    byte[] reversed = new byte[bytes.length];
+    for (int k = 0; k < bytes.length; k++)
+      reversed[k] = bytes[bytes.length - 1 - k];
+    return reversed;
+  }
+
+  public HomogenousPolynomial pow(int p) // returns the polynomial raised to the pth power
+  {
+    if (p < 1)
+      throw new IllegalArgumentException("power must be positive integer");
+    if (p == 1)
+      return new HomogenousPolynomial(this);
+    return times(pow(p - 1));
+  }
+
+  public HomogenousVector times(HomogenousVector v) // returns the product of the polynomial by a HomogenousVector
+  {
+    return v.times(this);
+  }
+
+  public boolean equalsZero() // returns wehther the polynomial is the zero polynomial, i.e. has all coefficients 0
+  {
+    if (terms != null)
+      return terms.isEmpty();
+    for (int i = 0; i <= degree; i++)
+      for (int j = 0; j <= degree - i; j++)
+        if (small != null ? small[i][j] != 0 : poly[i][j].signum() != 0)
+          return false;
+    return true;
+  }
+
+  public boolean equals(HomogenousPolynomial other) // returns whether the polynomial has the same degree and coefficients as other
+                                                     // without allocating, and in constant time if the hashes differ or
+                                                     // both polynomials are interned
+  {
+    if (this == other)
+      return true;
+    if (other == null || hash != other.hash || degree != other.degree || (interned && other.interned))
+      return false;
+    if (terms != null && other.terms != null)
+      return terms.equals(other.terms);
+    if (small != null && other.small != null)
+    {
+      for (int i = 0; i <= degree; i++)
+        for (int j = 0; j <= degree - i; j++)
+          if (small[i][j] != other.small[i][j])
+            return false;
+      return true;
+    }
+    for (int i = 0; i <= degree; i++)
+      for (int j = 0; j <= degree - i; j++)
+        if (!coeff(i, j).equals(other.coeff(i, j)))
+          return false;
+    return true;
+  }
+
+  public boolean equals(Object o) // returns whether o is a polynomial with the same degree and coefficients
+  {
+    if (o instanceof HomogenousPolynomial)
+      return equals((HomogenousPolynomial) o);
     else
+      return false;
+  }
+
+  public int hashCode() // returns the structural hash computed when the polynomial was built
+  {
+    return hash;
+  }
+
+  public HomogenousPolynomial intern() // returns the canonical instance with the same coefficients, so that equal interned
+                                       // polynomials are the same object
+  {
+    if (interned)
+      return this;
+    synchronized (INTERNED)
     {
-      if (bIndex == -1)
+      WeakReference<HomogenousPolynomial> ref = INTERNED.get(this);
+      HomogenousPolynomial canonical = ref == null ? null : ref.get();
+      if (canonical == null)
       {
-        if (cIndex == -1)
-        {
-          coeff = monomial.substring(0, aIndex);
-          a = monomial.substring(aIndex);
-        }
-        else
-        {
-          coeff = monomial.substring(0, aIndex);
-          a = monomial.substring(aIndex, cIndex);
-          c = monomial.substring(cIndex);
-        }
+        canonical = this;
+        interned = true;
+        INTERNED.put(this, new WeakReference<HomogenousPolynomial>(this));
       }
-      else
+      return canonical;
+    }
+  }
+
+  public long evalMod(long a, long b, long c, long p) // returns the value of the polynomial at (a, b, c) modulo a prime
+                                                    // p < 2^63, for a, b, c in [0, p)
+  {
+    if (p >= 1L << 31)
+      return evalMod(a, b, c, new Modular(p));
+    long[] aPow = powers(a, p);
+    long[] bPow = powers(b, p);
+    long[] cPow = powers(c, p);
+    BigInteger bigP = BigInteger.valueOf(p);
+    long v = 0;
+    if (terms != null)
+    {
+      for (Map.Entry<Integer, BigInteger> e : terms.entrySet())
       {
-        if (cIndex == -1)
-        {
-          coeff = monomial.substring(0, aIndex);
-          a = monomial.substring(aIndex, bIndex);
-          b = monomial.substring(bIndex);
-        }
-        else
-        {
-          coeff = monomial.substring(0, aIndex);
-          a = monomial.substring(aIndex, bIndex);
-          b = monomial.substring(bIndex, cIndex);
-          c = monomial.substring(cIndex);
-        }
+        int i = e.getKey() >>> 16;
+        int j = e.getKey() & 0xFFFF;
+        v = (v + e.getValue().mod(bigP).longValue() * aPow[i] % p * bPow[j] % p * cPow[degree - i - j]) % p;
       }
+      return v;
     }
-    try
+    for (int i = 0; i <= degree; i++)
+      for (int j = 0; j <= degree - i; j++)
+      {
+        long coeff = small != null ? Math.floorMod(small[i][j], p) : poly[i][j].mod(bigP).longValue();
+        if (coeff != 0)
+          v = (v + coeff * aPow[i] % p * bPow[j] % p * cPow[degree - i - j]) % p;
+      }
+    return v;
+  }
+
+  public long evalMod(long a, long b, long c, Modular field) // returns the value of the polynomial at (a, b, c) modulo the prime of
+                                                           // field, for a, b, c in [0, p)
+  {
+    return field.fromMontgomery(evalMontgomery(field.toMontgomery(a), field.toMontgomery(b), field.toMontgomery(c), field));
+  }
+
+  public long sample(int t) // returns the value of the polynomial at the random point Modular.sample(t) in Montgomery form,
+                            // the value at the first point is computed once
+  {
+    if (t == 0 && sampled)
+      return sample;
+    long[] point = Modular.sample(t);
+    long v = evalMontgomery(point[0], point[1], point[2], Modular.sampleField());
+    if (t == 0)
     {
-      coeffLong = new BigInteger(coeff);
+      sample = v;
+      sampled = true;
     }
-    catch (NumberFormatException e)
+    return v;
+  }
+
+  private long evalMontgomery(long a, long b, long c, Modular field) // returns the value of the polynomial at (a, b, c) in
+                                                                     // Montgomery form, for a, b, c in Montgomery form
+  {
+    return compile().evalMontgomery(a, b, c, field);
+  }
+
+  public CompiledPolynomial compile() // returns the polynomial compiled for repeated evaluation, computed once
+  {
+    CompiledPolynomial cp = compiled;
+    if (cp == null)
     {
-      throw new IllegalArgumentException("monomial must be of form Ia^Nb^Nc^N where I is an integer, N is nonnegative integer");
+      cp = new CompiledPolynomial(degree, keys(), values());
+      compiled = cp;
     }
-    if (a.equals(""))
-      aPow = BigInteger.ZERO;
-    else if (a.equals("a"))
-      aPow = BigInteger.ONE;
+    return cp;
+  }
+
+  public long[][] mod(Modular field) // returns the triangle of coefficients reduced modulo the prime of field, in Montgomery form
+  {
+    long[][] coeffs = triangleLong(degree);
+    if (terms != null)
+      for (Map.Entry<Integer, BigInteger> e : terms.entrySet())
+        coeffs[e.getKey() >>> 16][e.getKey() & 0xFFFF] = field.toMontgomery(e.getValue());
     else
+      for (int i = 0; i <= degree; i++)
+        for (int j = 0; j <= degree - i; j++)
+          if (small != null)
+            coeffs[i][j] = small[i][j] == 0 ? 0 : field.toMontgomery(small[i][j]);
+          else if (poly[i][j].signum() != 0)
+            coeffs[i][j] = field.toMontgomery(poly[i][j]);
+    return coeffs;
+  }
+
+  private long[] powers(long x, long p) // returns x^0, x^1, ..., x^d modulo p
+  {
+    long[] pow = new long[degree + 1];
+    pow[0] = 1 % p;
+    for (int i = 1; i <= degree; i++)
+      pow[i] = pow[i - 1] * x % p;
+    return pow;
+  }
+
+  public BigInteger eval(BigInteger a, BigInteger b, BigInteger c) // returns the value of the polynomial at (a, b, c)
+  {
+    return compile().eval(a, b, c);
+  }
+
+  public BigDecimal eval(BigDecimal a, BigDecimal b, BigDecimal c) // returns the value of the polynomial at (a, b, c)
+  {
+    return compile().eval(a, b, c);
+  }
+
+  public double eval(double a, double b, double c) // returns the value of the polynomial at (a, b, c) in double precision
+  {
+    return compile().eval(a, b, c);
+  }
+
+  public double[] eval(double[] a, double[] b, double[] c) // returns the values of the polynomial at the triangles with sides
+                                                           // (a[n], b[n], c[n]) in double precision, in one batch
+  {
+    double[] values = new double[a.length];
+    compile().eval(a, b, c, values);
+    return values;
+  }
+
+  public double[] eval(double[] sides) // returns the values of the polynomial at the triangles with sides (sides[3n], sides[3n+1],
+                                       // sides[3n+2]) in double precision, in one batch
+  {
+    if (sides.length % 3 != 0)
+      throw new IllegalArgumentException("sides must hold triples");
+    double[] values = new double[sides.length / 3];
+    compile().eval(sides, values);
+    return values;
+  }
+
+  public long[] evalMod(long[] a, long[] b, long[] c, Modular field) // returns the values of the polynomial at (a[n], b[n], c[n])
+                                                                     // modulo the prime of field, for a, b, c in [0, p), in one
+                                                                     // batch
+  {
+    int count = a.length;
+    if (b.length != count || c.length != count)
+      throw new IllegalArgumentException("arrays must have the same length");
+    long[] ma = new long[count];
+    long[] mb = new long[count];
+    long[] mc = new long[count];
+    for (int n = 0; n < count; n++)
     {
-      if (a.charAt(1) == '^')
-        try
-        {
-          aPow = new BigInteger(a.substring(2));
-          if (aPow.compareTo(BigInteger.ZERO) < 0)
-            throw new IllegalArgumentException("monomial must be of form Ia^Nb^Nc^N where I is an integer, N is nonnegative integer");
-        }
-        catch (NumberFormatException e)
-        {
-          throw new IllegalArgumentException("monomial must be of form Ia^Nb^Nc^N where I is an integer, N is nonnegative integer");
-        }
-      else
-        throw new IllegalArgumentException("monomial must be of form Ia^Nb^Nc^N where I is an integer, N is nonnegative integer");
+      ma[n] = field.toMontgomery(a[n]);
+      mb[n] = field.toMontgomery(b[n]);
+      mc[n] = field.toMontgomery(c[n]);
     }
-    if (b.equals(""))
-      bPow = BigInteger.ZERO;
-    else if (b.equals("b"))
-      bPow = BigInteger.ONE;
-    else
+    long[] values = new long[count];
+    compile().evalMontgomery(ma, mb, mc, values, field);
+    for (int n = 0; n < count; n++)
+      values[n] = field.fromMontgomery(values[n]);
+    return values;
+  }
+
+  public String toString() // returns the String form of the polynomial, ordered lexicographically as a>b>c
+  {
+    StringBuilder sb = new StringBuilder();
+    int d = degree;
+    for (int i = d; i >= 0; i--)
+      for (int j = d - i; j >= 0; j--)
+      {
+        BigInteger c = coeff(i, j);
+        if (c.signum() == 0)
+          continue;
+        if (c.signum() > 0 && sb.length() > 0)
+          sb.append('+');
+        appendCoeff(sb, c, d > 0);
+        appendPower(sb, 'a', i);
+        appendPower(sb, 'b', j);
+        appendPower(sb, 'c', d - i - j);
+      }
+    if (sb.length() == 0)
+      return "0";
+    return sb.toString();
+  }
+
+  private static void appendCoeff(StringBuilder sb, BigInteger c, boolean hasVariable) // appends a coefficient, leaving out a 1
+                                                                                       // in front of a variable
+  {
+    if (hasVariable && c.abs().equals(BigInteger.ONE))
     {
-      if (b.charAt(1) == '^')
-        try
-        {
-          bPow = new BigInteger(b.substring(2));
-          if (bPow.compareTo(BigInteger.ZERO) < 0)
-            throw new IllegalArgumentException("monomial must be of form Ia^Nb^Nc^N where I is an integer, N is nonnegative integer");
-        }
-        catch (NumberFormatException e)
-        {
-          throw new IllegalArgumentException("monomial must be of form Ia^Nb^Nc^N where I is an integer, N is nonnegative integer");
-        }
-      else
-        throw new IllegalArgumentException("monomial must be of form Ia^Nb^Nc^N where I is an integer, N is nonnegative integer");
+      if (c.signum() < 0)
+        sb.append('-');
     }
-    if (c.equals(""))
-      cPow = BigInteger.ZERO;
-    else if (c.equals("c"))
-      cPow = BigInteger.ONE;
     else
+      sb.append(c);
+  }
+
+  private static void appendPower(StringBuilder sb, char variable, int power) // appends variable^power, or just the variable if the
+                                                                              // power is 1, or nothing if it is 0
+  {
+    if (power > 0)
+      sb.append(variable);
+    if (power > 1)
+      sb.append('^').append(power);
+  }
+
+  private static int parse(String polyString, TreeMap<Integer, BigInteger> parsed) // reads polyString in one pass, adding the
+                                                                                   // coefficient of each a^ib^jc^k into parsed
+                                                                                   // under key(i, j), returns the degree
+  {
+    int n = polyString.length();
+    int pos = skipSpaces(polyString, 0);
+    if (pos == n)
+      throw new IllegalArgumentException("string cannot be empty");
+    int degree = -1;
+    boolean first = true;
+    while (pos < n)
     {
-      if (c.charAt(1) == '^')
-        try
+      boolean negative = false;
+      char ch = polyString.charAt(pos);
+      if (ch == '+' || ch == '-')
+      {
+        negative = ch == '-';
+        pos = skipSpaces(polyString, pos + 1);
+      }
+      else if (!first)
+        throw unexpected(polyString, pos);
+      first = false;
+      int start = pos;
+      while (pos < n && Character.isDigit(polyString.charAt(pos)))
+        pos++;
+      BigInteger coeff;
+      if (pos == start)
+        coeff = BigInteger.ONE;
+      else if (pos - start <= 18)
+        coeff = BigInteger.valueOf(Long.parseLong(polyString.substring(start, pos)));
+      else
+        coeff = new BigInteger(polyString.substring(start, pos));
+      boolean hasCoeff = pos > start;
+      int[] powers = new int[3];
+      boolean hasVariable = false;
+      pos = skipSpaces(polyString, pos);
+      while (pos < n)
+      {
+        ch = polyString.charAt(pos);
+        if (ch == '*' && (hasCoeff || hasVariable))
         {
-          cPow = new BigInteger(c.substring(2));
-          if (cPow.compareTo(BigInteger.ZERO) < 0)
-            throw new IllegalArgumentException("monomial must be of form Ia^Nb^Nc^N where I is an integer, N is nonnegative integer");
+          pos = skipSpaces(polyString, pos + 1);
+          continue;
         }
-        catch (NumberFormatException e)
+        int v = ch - 'a';
+        if (v < 0 || v > 2)
+          break;
+        hasVariable = true;
+        pos = skipSpaces(polyString, pos + 1);
+        int power = 1;
+        if (pos < n && polyString.charAt(pos) == '^')
         {
-          throw new IllegalArgumentException("monomial must be of form Ia^Nb^Nc^N where I is an integer, N is nonnegative integer");
+          pos = skipSpaces(polyString, pos + 1);
+          start = pos;
+          power = 0;
+          while (pos < n && Character.isDigit(polyString.charAt(pos)))
+          {
+            power = 10 * power + polyString.charAt(pos) - '0';
+            if (power > 0xFFFF)
+              throw new IllegalArgumentException("exponent too large at index " + start + " in " + polyString);
+            pos++;
+          }
+          if (pos == start)
+            throw unexpected(polyString, pos);
+          pos = skipSpaces(polyString, pos);
         }
+        powers[v] += power;
+        if (powers[v] > 0xFFFF)
+          throw new IllegalArgumentException("exponent too large in " + polyString);
+      }
+      if (!hasCoeff && !hasVariable)
+        throw unexpected(polyString, pos);
+      int d = powers[0] + powers[1] + powers[2];
+      if (degree == -1)
+        degree = d;
+      else if (d != degree)
+        throw new IllegalArgumentException("polynomial must be homogenous");
+      if (negative)
+        coeff = coeff.negate();
+      Integer k = key(powers[0], powers[1]);
+      BigInteger sum = parsed.get(k);
+      sum = sum == null ? coeff : sum.add(coeff);
+      if (sum.signum() == 0)
+        parsed.remove(k);
       else
-        throw new IllegalArgumentException("monomial must be of form Ia^Nb^Nc^N where I is an integer, N is nonnegative integer");
-    }
-    BigInteger[] mono = new BigInteger[4];
-    mono[0] = coeffLong;
-    mono[1] = aPow;
-    mono[2] = bPow;
-    mono[3] = cPow;
-    return mono;
+        parsed.put(k, sum);
+    }
+    return degree;
+  }
+
+  private static int skipSpaces(String s, int pos) // returns the index of the first character at or after pos that is not whitespace
+  {
+    while (pos < s.length() && Character.isWhitespace(s.charAt(pos)))
+      pos++;
+    return pos;
+  }
+
+  private static IllegalArgumentException unexpected(String s, int pos) // returns the exception for a malformed polynomial String
+  {
+    if (pos == s.length())
+      return new IllegalArgumentException("unexpected end of polynomial " + s);
+    return new IllegalArgumentException("unexpected character '" + s.charAt(pos) + "' at index " + pos + " in polynomial " + s);
   }
 }
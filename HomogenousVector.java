@@ -7,6 +7,7 @@ public class HomogenousVector
   private HomogenousPolynomial x; // the first polynomial
   private HomogenousPolynomial y; // the second polynomial
   private HomogenousPolynomial z; // the third polynomial
+  private int hash; // the cached projective hash, 0 if not yet computed
 
   public HomogenousVector() // returns a new vector of all degree 0 zero polynomials
   {
@@ -50,18 +51,13 @@ public class HomogenousVector
     z = other.z;
   }
 
-  public void reduce() // factors out the gcd of the coefficients of the polynomial
+  public void reduce() // divides out the gcd of the polynomials, both its integer content and any common polynomial factor,
+                       // and interns the results
   {
-    BigInteger Xgcd = x.gcd();
-    BigInteger Ygcd = y.gcd();
-    BigInteger Zgcd = z.gcd();
-    BigInteger gcd = Xgcd.gcd(Ygcd.gcd(Zgcd));
-    if (gcd != BigInteger.ZERO)
-    {
-      x = x.div(gcd);
-      y = y.div(gcd);
-      z = z.div(gcd);
-    }
+    HomogenousPolynomial[] reduced = Grobner.removeCommonFactor(x, y, z);
+    x = reduced[0].intern();
+    y = reduced[1].intern();
+    z = reduced[2].intern();
   }
 
   public int degree() // returns the degree of the polynomials
@@ -104,18 +100,30 @@ public class HomogenousVector
     return new HomogenousVector(newX, newY, newZ);
   }
 
-  public boolean perp(HomogenousVector other) // returns whether the dot product of this and other is 0
+  public boolean perp(HomogenousVector other) // returns whether the dot product of this and other is 0, certified modulo primes
   {
-    return dot(other).equalsZero();
+    return Modular.isZero(field -> ModularPolynomial.dot(mod(field), other.mod(field)), () -> dot(other).equalsZero());
   }
 
   public boolean equals(HomogenousVector other) // returns whether the vectors have their polynomials in the same ratio, checks via cross product
   {
+    if (x.equals(other.x) && y.equals(other.y) && z.equals(other.z))
+      return true;
     if (this.equalsZero())
       return other.equalsZero();
     if (other.equalsZero())
       return this.equalsZero();
-    return cross(other).equalsZero();
+    return Modular.allZero(field -> ModularPolynomial.cross(mod(field), other.mod(field)), () -> cross(other).equalsZero());
+  }
+
+  public ModularPolynomial[] mod(Modular field) // returns the entries modulo the prime of field, or only their bounds if field is null
+  {
+    return new ModularPolynomial[] {new ModularPolynomial(x, field), new ModularPolynomial(y, field), new ModularPolynomial(z, field)};
+  }
+
+  public long[] sample(int t) // returns the entries at the random point Modular.sample(t) in Montgomery form
+  {
+    return new long[] {x.sample(t), y.sample(t), z.sample(t)};
   }
 
   public boolean equalsZero() // returns whether all three entries are zero polynomials
@@ -174,20 +182,71 @@ public class HomogenousVector
     return v;
   }
 
-  public int hashCode()
+  public double[] eval(double a, double b, double c) // returns the values of the polynomials at (a, b, c) in double precision
+  {
+    return new double[] {x.eval(a, b, c), y.eval(a, b, c), z.eval(a, b, c)};
+  }
+
+  public double[][] eval(double[] a, double[] b, double[] c) // returns the values of x, y, z at the triangles with sides
+                                                             // (a[n], b[n], c[n]) in double precision, in one batch
+  {
+    return new double[][] {x.eval(a, b, c), y.eval(a, b, c), z.eval(a, b, c)};
+  }
+
+  public double[][] eval(double[] sides) // returns the values of x, y, z at the triangles with sides (sides[3n], sides[3n+1],
+                                         // sides[3n+2]) in double precision, in one batch
+  {
+    return new double[][] {x.eval(sides), y.eval(sides), z.eval(sides)};
+  }
+
+  public long[][] evalMod(long[] a, long[] b, long[] c, Modular field) // returns the values of x, y, z at (a[n], b[n], c[n])
+                                                                       // modulo the prime of field, in one batch
+  {
+    return new long[][] {x.evalMod(a, b, c, field), y.evalMod(a, b, c, field), z.evalMod(a, b, c, field)};
+  }
+
+  public boolean equals(Object o) // returns whether o is a vector with its polynomials in the same ratio
+  {
+    if (o instanceof HomogenousVector)
+      return equals((HomogenousVector) o);
+    else
+      return false;
+  }
+
+  public int hashCode() // returns a hash that is the same for vectors in the same ratio, computed once
+  {
+    int h = hash;
+    if (h == 0)
+    {
+      h = projectiveHash(x, y, z);
+      hash = h;
+    }
+    return h;
+  }
+
+  public static int projectiveHash(HomogenousPolynomial... polys) // returns a hash of the ratio of the polynomials, see below
+  {
+    long[] v = new long[polys.length];
+    for (int i = 0; i < polys.length; i++)
+      v[i] = polys[i].sample(0);
+    return projectiveHash(v);
+  }
+
+  public static int projectiveHash(long... v) // returns a hash of the ratio of polynomials from their values at the random point
+                                              // Modular.sample(0), scaled so the first nonzero value is 1, which only fails to
+                                              // match for polynomials in the same ratio if the ratio itself vanishes there, and
+                                              // so is the same for a construction whether or not its common factor is cancelled
   {
-    BigInteger x1 = x.eval(BigInteger.ONE, BigInteger.ONE, BigInteger.ONE);
-    BigInteger y1 = y.eval(BigInteger.ONE, BigInteger.ONE, BigInteger.ONE);
-    BigInteger z1 = z.eval(BigInteger.ONE, BigInteger.ONE, BigInteger.ONE);
-    if (x1.equals(BigInteger.ZERO) && y1.equals(BigInteger.ZERO) && z1.equals(BigInteger.ZERO))
+    Modular field = Modular.sampleField();
+    int first = 0;
+    while (first < v.length && v[first] == 0)
+      first++;
+    if (first == v.length)
       return 0;
-    BigInteger gcd = x1.gcd(y1.gcd(z1));
-    x1 = x1.divide(gcd);
-    y1 = y1.divide(gcd);
-    z1 = z1.divide(gcd);
-    int intX = x1.intValue();
-    int intY = y1.intValue();
-    int intZ = z1.intValue();
-    return intX + intY + intZ;
+    long inverse = field.inverse(field.fromMontgomery(v[first]));
+    int h = first + 1;
+    for (int i = first + 1; i < v.length; i++)
+      h = 31 * h + Long.hashCode(field.mulmod(field.fromMontgomery(v[i]), inverse));
+    return h;
   }
 }
@@ -7,7 +7,10 @@ import java.math.*;
  */
 public class Line
 {
-  private HomogenousVector coeffs; // stores the coefficients of the line equation
+  private volatile HomogenousVector coeffs; // stores the coefficients of the line equation, null until expanded from construction
+  private Construction<HomogenousVector> construction; // how the line is constructed from others, null if given by coefficients
+  private int hash; // the cached hash of the coefficients, 0 if not yet computed
+  private volatile Numeric.Shadow shadow; // the coefficients in the triangle last drawn in, null until needed
 
   public Line(HomogenousVector coeffs) // sets the coefficients of the line equation
   {
@@ -61,9 +64,18 @@ public class Line
   {
     if (P1.equals(P2))
       throw new IllegalArgumentException("points cannot be the same");
-    HomogenousVector v = P1.getCoords().cross(P2.getCoords());
-    v.reduce();
-    this.coeffs = v;
+    construction = new Construction<HomogenousVector>(P1.degree() + P2.degree(), () -> P1.getCoords().cross(P2.getCoords()), t -> Modular.sampleField().cross(P1.sample(t), P2.sample(t)), n -> n.cross(P1.shadow(n), P2.shadow(n)));
+    check();
+  }
+
+  /**
+   * Initializes a line with a construction from other objects, its coefficients being expanded when first needed.
+   * @param construction construction
+   */
+  public Line(Construction<HomogenousVector> construction)
+  {
+    this.construction = construction;
+    check();
   }
 
   /**
@@ -73,6 +85,19 @@ public class Line
   public Line(Line other)
   {
     coeffs = other.coeffs;
+    construction = other.construction;
+    hash = other.hash;
+    shadow = other.shadow;
+  }
+
+  /**
+   * Expands the coefficients at once if the construction has too high a degree, or if it vanishes at a random point so
+   * that only expanding can tell whether the coefficients are all zero.
+   */
+  private void check()
+  {
+    if (construction.degree() > Construction.MAX_DEGREE || Modular.vanishes(construction.sample(0)))
+      getCoeffs();
   }
 
   /**
@@ -82,16 +107,82 @@ public class Line
    */
   public boolean equals(Line other)
   {
-    return coeffs.equals(other.coeffs);
+    if (this == other)
+      return true;
+    if (!Modular.vanishes(Modular.sampleField().cross(sample(0), other.sample(0))))
+      return false;
+    return getCoeffs().equals(other.getCoeffs());
+  }
+
+  /**
+   * Returns whether the given object is a line with the same equation.
+   * @param o object
+   * @return True if o is a line with equal coefficients. False otherwise.
+   */
+  public boolean equals(Object o)
+  {
+    if (o instanceof Line)
+      return equals((Line) o);
+    else
+      return false;
   }
 
   /**
-   * Returns a homogeneous vector containing the coefficients of the line equation.
+   * Returns a homogeneous vector containing the coefficients of the line equation, expanding them from the construction
+   * the first time.
    * @return coefficients
    */
   public HomogenousVector getCoeffs()
   {
-    return coeffs;
+    HomogenousVector v = coeffs;
+    if (v == null)
+    {
+      v = construction.expand();
+      if (v.equalsZero())
+        throw new IllegalArgumentException("line equation coordinates cannot all be zero");
+      v.reduce();
+      coeffs = v;
+    }
+    return v;
+  }
+
+  /**
+   * Returns the degree of the coefficients, or a bound on it if they are not yet expanded.
+   * @return degree
+   */
+  public int degree()
+  {
+    HomogenousVector v = coeffs;
+    return v != null ? v.degree() : construction.degree();
+  }
+
+  /**
+   * Returns the coefficients at the random point Modular.sample(t) in Montgomery form, from the construction if they are
+   * not yet expanded. The array is not to be modified.
+   * @param t index of the random point
+   * @return coefficients modulo the sample prime
+   */
+  public long[] sample(int t)
+  {
+    HomogenousVector v = coeffs;
+    return v != null ? v.sample(t) : construction.sample(t);
+  }
+
+  /**
+   * Returns the coefficients of the line in a numeric triangle, computed once from the shadows of the inputs of its
+   * construction or else from its coefficients. The array is not to be modified.
+   * @param n triangle
+   * @return coefficients in double precision
+   */
+  public double[] shadow(Numeric n)
+  {
+    Numeric.Shadow s = shadow;
+    if (s == null || s.triangle() != n)
+    {
+      s = new Numeric.Shadow(n, construction != null ? construction.eval(n) : n.eval(coeffs));
+      shadow = s;
+    }
+    return s.coords();
   }
 
   /**
@@ -100,6 +191,7 @@ public class Line
    */
   public String toString()
   {
+    HomogenousVector coeffs = getCoeffs();
     return "( " + coeffs.getX() + " ) x + ( " + coeffs.getY() + " ) y + ( " + coeffs.getZ() + " ) z = 0";
   }
 
@@ -120,7 +212,7 @@ public class Line
    */
   public boolean contains(Point P)
   {
-    return coeffs.perp(P.getCoords());
+    return P.on(this);
   }
 
   /**
@@ -149,7 +241,7 @@ public class Line
    */
   public HomogenousPolynomial getX()
   {
-    return coeffs.getX();
+    return getCoeffs().getX();
   }
 
   /**
@@ -158,7 +250,7 @@ public class Line
    */
   public HomogenousPolynomial getY()
   {
-    return coeffs.getY();
+    return getCoeffs().getY();
   }
 
   /**
@@ -167,7 +259,7 @@ public class Line
    */
   public HomogenousPolynomial getZ()
   {
-    return coeffs.getZ();
+    return getCoeffs().getZ();
   }
 
   /**
@@ -194,44 +286,13 @@ public class Line
    */
   public int[] screenCoords(int ax, int ay, int bx, int by, int cx, int cy, int width, int height)
   {
-    Point P1, P2;
-    if (equals(new Line("0", "0", "1")))
-    {
-      P1 = new Point("1", "0", "0");
-      P2 = new Point("0", "1", "0");
-    }
-    else if (equals(new Line("0", "1", "0")))
-    {
-      P1 = new Point("1", "0", "0");
-      P2 = new Point("0", "0", "1");
-    }
-    else if (new Point("1", "0", "0").on(this))
-    {
-      P1 = new Point("1", "0", "0");
-      P2 = new Point(this, new Line("1", "0", "0"));
-    }
-    else
-    {
-      P1 = new Point(this, new Line("0", "1", "0"));
-      P2 = new Point(this, new Line("0", "0", "1"));
-    }
-    int a = (int) Math.round(Math.sqrt((bx - cx) * (bx - cx) + (by - cy) * (by - cy)));
-    int b = (int) Math.round(Math.sqrt((cx - ax) * (cx - ax) + (cy - ay) * (cy - ay)));
-    int c = (int) Math.round(Math.sqrt((ax - bx) * (ax - bx) + (ay - by) * (ay - by)));
-    BigDecimal[] u1 = P1.getCoords().eval(new BigInteger(a + ""), new BigInteger(b + ""), new BigInteger(c + ""));
-    BigDecimal[] u2 = P2.getCoords().eval(new BigInteger(a + ""), new BigInteger(b + ""), new BigInteger(c + ""));
-    double[] v1 = new double[3];
-    double[] v2 = new double[3];
-    v1[0] = u1[0].doubleValue();
-    v1[1] = u1[1].doubleValue();
-    v1[2] = u1[2].doubleValue();
-    v2[0] = u2[0].doubleValue();
-    v2[1] = u2[1].doubleValue();
-    v2[2] = u2[2].doubleValue();
-    double x1 = v1[0] * ax + v1[1] * bx + v1[2] * cx;
-    double y1 = v1[0] * ay + v1[1] * by + v1[2] * cy;
-    double x2 = v2[0] * ax + v2[1] * bx + v2[2] * cx;
-    double y2 = v2[0] * ay + v2[1] * by + v2[2] * cy;
+    Numeric n = Numeric.of(ax, ay, bx, by, cx, cy);
+    double[] l = n.screenLine(shadow(n));
+    double norm = Math.sqrt(l[0] * l[0] + l[1] * l[1]);
+    double x1 = -l[0] * l[2] / (norm * norm);
+    double y1 = -l[1] * l[2] / (norm * norm);
+    double x2 = x1 - l[1] / norm * (width + height);
+    double y2 = y1 + l[0] / norm * (width + height);
     int[] sC = new int[4];
     if (x1 == x2)
     {
@@ -313,11 +374,18 @@ public class Line
   }
 
   /**
-   * Returns the hash code.
+   * Returns the hash code, cached and the same for all equal lines, found from a sample so that the coefficients need
+   * not be expanded.
    * @return hash
    */
   public int hashCode()
   {
-    return coeffs.hashCode();
+    int h = hash;
+    if (h == 0)
+    {
+      h = HomogenousVector.projectiveHash(sample(0));
+      hash = h;
+    }
+    return h;
   }
 }
@@ -0,0 +1,333 @@
+// arithmetic modulo a prime p < 2^63 in primitive longs, using Montgomery multiplication so that no product needs a division
+// the kth field from field(k) uses the kth largest prime below 2^63, and predicates that ask whether a polynomial expression
+// is zero are answered by evaluating the expression modulo enough of these primes that a zero result is certain
+// predicates can also first evaluate their expression at random side lengths modulo the first prime, by the Schwartz-Zippel
+// lemma a nonzero polynomial of degree d vanishes there with probability at most d / p, so a nonzero value rejects at once and
+// a zero value is either confirmed exactly or, when exactness is switched off, accepted once the error bound is met
+
+import java.math.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+
+public class Modular
+{
+  public static final int PRIME_BITS = 62; // every prime used is larger than 2^PRIME_BITS
+
+  private static final ArrayList<Modular> FIELDS = new ArrayList<Modular>(); // the fields of the primes found so far, largest first
+  private static final ArrayList<long[]> SAMPLES = new ArrayList<long[]>(); // the random side lengths (a, b, c) drawn so far, in
+                                                                            // Montgomery form modulo the first prime
+
+  private static volatile boolean exact = true; // whether predicates confirm a zero value at a random point exactly
+  private static volatile double errorBound = 1e-18; // the largest chance a predicate may wrongly answer true when not exact
+
+  private final long p; // the prime modulus
+  private final long pInv; // -p^-1 modulo 2^64
+  private final long r2; // 2^128 modulo p, used to move numbers into Montgomery form
+
+  public Modular(long p) // returns the field of integers modulo an odd p with 1 < p < 2^63
+  {
+    if (p <= 1 || (p & 1) == 0)
+      throw new IllegalArgumentException("modulus must be odd and greater than 1");
+    this.p = p;
+    long inv = p; // inverse of p modulo 2^3, each step doubles the number of correct bits
+    for (int i = 0; i < 5; i++)
+      inv *= 2 - p * inv;
+    pInv = -inv;
+    long r = Long.remainderUnsigned(-p, p); // 2^64 modulo p
+    long t = r;
+    for (int i = 0; i < 64; i++)
+      t = add(t, t);
+    r2 = t;
+  }
+
+  public static synchronized Modular field(int k) // returns the field of the kth largest prime below 2^63, k = 0, 1, ...
+  {
+    while (FIELDS.size() <= k)
+    {
+      long candidate = FIELDS.isEmpty() ? Long.MAX_VALUE : FIELDS.get(FIELDS.size() - 1).p - 2;
+      while (!BigInteger.valueOf(candidate).isProbablePrime(100))
+        candidate -= 2;
+      FIELDS.add(new Modular(candidate));
+    }
+    return FIELDS.get(k);
+  }
+
+  public static Modular sampleField() // returns the field random points are sampled in
+  {
+    return field(0);
+  }
+
+  public static synchronized long[] sample(int t) // returns the tth random point (a, b, c) in Montgomery form, t = 0, 1, ...
+  {
+    Modular field = sampleField();
+    while (SAMPLES.size() <= t)
+    {
+      ThreadLocalRandom random = ThreadLocalRandom.current();
+      SAMPLES.add(new long[] {field.toMontgomery(random.nextLong(1, field.p)), field.toMontgomery(random.nextLong(1, field.p)), field.toMontgomery(random.nextLong(1, field.p))});
+    }
+    return SAMPLES.get(t);
+  }
+
+  public static boolean isExact() // returns whether predicates confirm zero values at random points exactly
+  {
+    return exact;
+  }
+
+  public static void setExact(boolean exact) // sets whether predicates confirm zero values at random points exactly
+  {
+    Modular.exact = exact;
+  }
+
+  public static double errorBound() // returns the largest chance a predicate may wrongly answer true when not exact
+  {
+    return errorBound;
+  }
+
+  public static void setErrorBound(double errorBound) // sets the largest chance a predicate may wrongly answer true when not exact
+  {
+    if (!(errorBound > 0 && errorBound < 1))
+      throw new IllegalArgumentException("error bound must be between 0 and 1");
+    Modular.errorBound = errorBound;
+  }
+
+  public long prime() // returns the modulus
+  {
+    return p;
+  }
+
+  public long add(long x, long y) // returns x + y modulo p for x, y in [0, p)
+  {
+    long s = x + y - p;
+    return s < 0 ? s + p : s;
+  }
+
+  public long sub(long x, long y) // returns x - y modulo p for x, y in [0, p)
+  {
+    long s = x - y;
+    return s < 0 ? s + p : s;
+  }
+
+  public long neg(long x) // returns -x modulo p for x in [0, p)
+  {
+    return x == 0 ? 0 : p - x;
+  }
+
+  public long mul(long x, long y) // returns x * y / 2^64 modulo p for x, y in [0, p), the product in Montgomery form
+  {
+    return reduce(Math.multiplyHigh(x, y), x * y);
+  }
+
+  public long reduce(long hi, long lo) // returns (hi * 2^64 + lo) / 2^64 modulo p for hi in [0, p)
+  {
+    long m = lo * pInv;
+    long mp = Math.multiplyHigh(m, p) + ((m >> 63) & p); // the high word of m * p as unsigned numbers
+    long t = hi + mp + (lo != 0 ? 1 : 0);
+    return Long.compareUnsigned(t, p) >= 0 ? t - p : t;
+  }
+
+  public long toMontgomery(long x) // returns x * 2^64 modulo p for any x
+  {
+    return mul(Math.floorMod(x, p), r2);
+  }
+
+  public long toMontgomery(BigInteger x) // returns x * 2^64 modulo p for any x, by Horner's rule on its 64 bit words
+  {
+    if (x.bitLength() < 64)
+      return toMontgomery(x.longValue());
+    byte[] bytes = x.abs().toByteArray();
+    int words = (bytes.length + 7) / 8;
+    long y = 0;
+    int b = 0;
+    for (int w = 0; w < words; w++)
+    {
+      long word = 0;
+      for (int end = bytes.length - 8 * (words - 1 - w); b < end; b++)
+        word = (word << 8) | (bytes[b] & 0xFF);
+      y = mul(reduce(y, word), r2); // y * 2^64 + word modulo p
+    }
+    y = mul(y, r2);
+    return x.signum() < 0 ? neg(y) : y;
+  }
+
+  public long fromMontgomery(long x) // returns x / 2^64 modulo p, the inverse of toMontgomery
+  {
+    return mul(x, 1);
+  }
+
+  public long mulmod(long x, long y) // returns x * y modulo p for x, y in [0, p) in ordinary form
+  {
+    return mul(mul(x, y), r2);
+  }
+
+  public long pow(long x, long e) // returns x^e modulo p for x in [0, p) and e >= 0 in ordinary form
+  {
+    long result = toMontgomery(1);
+    long base = toMontgomery(x);
+    while (e > 0)
+    {
+      if ((e & 1) == 1)
+        result = mul(result, base);
+      base = mul(base, base);
+      e >>= 1;
+    }
+    return fromMontgomery(result);
+  }
+
+  public long inverse(long x) // returns the inverse of x modulo a prime p for x in [1, p) in ordinary form
+  {
+    if (x == 0)
+      throw new IllegalArgumentException("cannot invert 0");
+    return pow(x, p - 2);
+  }
+
+  public long dot(long[] u, long[] v) // returns the dot product of two vectors in Montgomery form
+  {
+    return add(add(mul(u[0], v[0]), mul(u[1], v[1])), mul(u[2], v[2]));
+  }
+
+  public long det(long[] u, long[] v, long[] w) // returns the determinant with rows u, v, w in Montgomery form
+  {
+    long x = sub(mul(v[1], w[2]), mul(v[2], w[1]));
+    long y = sub(mul(v[2], w[0]), mul(v[0], w[2]));
+    long z = sub(mul(v[0], w[1]), mul(v[1], w[0]));
+    return add(add(mul(u[0], x), mul(u[1], y)), mul(u[2], z));
+  }
+
+  public long[] cross(long[] u, long[] v) // returns the cross product of two vectors in Montgomery form
+  {
+    return new long[] {sub(mul(u[1], v[2]), mul(u[2], v[1])), sub(mul(u[2], v[0]), mul(u[0], v[2])), sub(mul(u[0], v[1]), mul(u[1], v[0]))};
+  }
+
+  public static boolean vanishes(long[] v) // returns whether every entry of v is 0
+  {
+    for (long x : v)
+      if (x != 0)
+        return false;
+    return true;
+  }
+
+  public static boolean sampleZero(int degree, IntToLongFunction value, BooleanSupplier exact) // returns whether a polynomial of at
+                                                                                             // most the given degree is zero, where
+                                                                                             // value gives its value at sample(t)
+                                                                                             // a nonzero value answers false, and a
+                                                                                             // zero value is confirmed by exact, or
+                                                                                             // when not exact by further samples
+                                                                                             // until the error bound is met
+  {
+    if (value.applyAsLong(0) != 0)
+      return false;
+    if (Modular.exact)
+      return exact.getAsBoolean();
+    for (int t = 1; t < trials(degree); t++)
+      if (value.applyAsLong(t) != 0)
+        return false;
+    return true;
+  }
+
+  private static int trials(int degree) // returns how many zero values at random points bring the chance that a nonzero
+                                        // polynomial of the given degree had them all below the error bound
+  {
+    if (degree == 0)
+      return 1;
+    double miss = Math.log(degree) - Math.log(sampleField().p); // the log of the chance that one sample misses
+    return Math.max(1, (int) Math.ceil(Math.log(errorBound) / miss));
+  }
+
+  public static boolean isZero(Function<Modular, ModularPolynomial> expression, BooleanSupplier exact) // returns whether the integer
+                                                                                                     // polynomial that expression
+                                                                                                     // computes modulo a prime is
+                                                                                                     // zero, see allZero
+  {
+    return allZero(field -> new ModularPolynomial[] {expression.apply(field)}, exact);
+  }
+
+  public static boolean allZero(Function<Modular, ModularPolynomial[]> expressions, BooleanSupplier exact) // returns whether all the
+                                                                                    // integer polynomials that expressions computes
+                                                                                    // modulo a prime are zero, a nonzero residue proves
+                                                                                    // a polynomial nonzero and residues of zero modulo
+                                                                                    // primes whose product exceeds twice every
+                                                                                    // coefficient bound prove them all zero
+                                                                                    // if exact is not null and evaluating the expressions
+                                                                                    // exactly looks cheaper than modulo that many primes,
+                                                                                    // exact is asked for the answer instead
+  {
+    ModularPolynomial[] bounds = expressions.apply(null);
+    int primes = primes(bounds);
+    if (exact != null)
+    {
+      long exactCost = 0;
+      long modularCost = 0;
+      for (ModularPolynomial bound : bounds)
+      {
+        exactCost += bound.exactCost();
+        modularCost += bound.modularCost();
+      }
+      if (exactCost <= primes * modularCost)
+        return exact.getAsBoolean();
+    }
+    for (int k = 0; k < primes; k++)
+      for (ModularPolynomial value : expressions.apply(field(k)))
+        if (!value.isZero())
+          return false;
+    return true;
+  }
+
+  private static int primes(ModularPolynomial[] bounds) // returns how many primes certify that polynomials with these bounds are zero
+  {
+    int bits = 0;
+    for (ModularPolynomial bound : bounds)
+      bits = Math.max(bits, bound.bits());
+    return bits / PRIME_BITS + 1;
+  }
+
+  public static HomogenousPolynomial reconstruct(Function<Modular, ModularPolynomial> expression) // returns the integer polynomial
+                                                                                                 // that expression computes modulo
+                                                                                                 // a prime, combining the residues
+                                                                                                 // by the Chinese remainder theorem
+  {
+    int count = primes(new ModularPolynomial[] {expression.apply(null)});
+    ArrayList<ModularPolynomial> residues = new ArrayList<ModularPolynomial>();
+    for (int k = 0; k < count; k++)
+      residues.add(expression.apply(field(k)));
+    int d = residues.get(0).degree();
+    BigInteger[][] poly = new BigInteger[d + 1][d + 1];
+    long[] r = new long[residues.size()];
+    long[] primes = new long[residues.size()];
+    for (int k = 0; k < primes.length; k++)
+      primes[k] = residues.get(k).field().prime();
+    for (int i = 0; i <= d; i++)
+      for (int j = 0; j <= d; j++)
+      {
+        if (i + j > d)
+        {
+          poly[i][j] = BigInteger.ZERO;
+          continue;
+        }
+        for (int k = 0; k < r.length; k++)
+          r[k] = residues.get(k).coeff(i, j);
+        poly[i][j] = crt(r, primes);
+      }
+    return new HomogenousPolynomial(poly);
+  }
+
+  public static BigInteger crt(long[] residues, long[] primes) // returns the integer x with |x| < M / 2 that is congruent to
+                                                               // residues[k] modulo primes[k] for each k, where M is the product
+                                                               // of the distinct primes, found by Garner's algorithm
+  {
+    BigInteger x = BigInteger.valueOf(residues[0]);
+    BigInteger m = BigInteger.valueOf(primes[0]);
+    for (int k = 1; k < primes.length; k++)
+    {
+      Modular field = new Modular(primes[k]);
+      BigInteger bigP = BigInteger.valueOf(primes[k]);
+      long t = field.sub(residues[k], x.mod(bigP).longValue());
+      t = field.mulmod(t, field.inverse(m.mod(bigP).longValue()));
+      x = x.add(m.multiply(BigInteger.valueOf(t)));
+      m = m.multiply(bigP);
+    }
+    if (x.shiftLeft(1).compareTo(m) > 0)
+      x = x.subtract(m);
+    return x;
+  }
+}
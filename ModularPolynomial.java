@@ -0,0 +1,202 @@
+// represents the image of a homogenous integer polynomial in a, b, c modulo a prime, together with a bound on the bit length of
+// the integer coefficients it stands for, so that Modular can tell how many primes are needed to certify an answer
+// coefficients are stored densely in Montgomery form, coeffs[i][j] for a^ib^jc^(d-i-j) as in HomogenousPolynomial
+// a polynomial with a null field has no coefficients and only tracks the degree, the bound and rough operation counts for
+// evaluating the expression exactly and modulo one prime, which lets Modular decide how to evaluate it before doing so
+
+public class ModularPolynomial
+{
+  private final Modular field; // the field the coefficients are reduced in, null if only the bound is tracked
+  private final int degree; // the degree of the polynomial
+  private final long[][] coeffs; // the coefficients in Montgomery form, only entries with i+j<=d are used, null if field is null
+  private final int bits; // every integer coefficient of the polynomial represented has absolute value less than 2^bits
+  private final long exactCost; // roughly the word operations needed to compute the polynomial exactly, only if field is null
+  private final long modularCost; // roughly the word operations needed to compute the polynomial modulo one prime, only if field is null
+
+  public ModularPolynomial(HomogenousPolynomial p, Modular field) // returns p modulo the prime of field, or only its bound if
+                                                                  // field is null
+  {
+    this.field = field;
+    degree = p.degree();
+    coeffs = field == null ? null : p.mod(field);
+    bits = p.coeffBits();
+    exactCost = 0;
+    modularCost = size(degree) * words(bits);
+  }
+
+  private ModularPolynomial(Modular field, int degree, long[][] coeffs, int bits) // sets the fields directly
+  {
+    this(field, degree, coeffs, bits, 0, 0);
+  }
+
+  private ModularPolynomial(Modular field, int degree, long[][] coeffs, int bits, long exactCost, long modularCost) // sets the fields
+                                                                                                                  // directly
+  {
+    this.field = field;
+    this.degree = degree;
+    this.coeffs = coeffs;
+    this.bits = bits;
+    this.exactCost = exactCost;
+    this.modularCost = modularCost;
+  }
+
+  public Modular field() // returns the field the coefficients are reduced in
+  {
+    return field;
+  }
+
+  public int degree() // returns the degree of the polynomial
+  {
+    return degree;
+  }
+
+  public int bits() // returns the bound on the bit length of the integer coefficients represented
+  {
+    return bits;
+  }
+
+  public long exactCost() // returns roughly the word operations needed to compute the polynomial exactly, for a null field
+  {
+    return exactCost;
+  }
+
+  public long modularCost() // returns roughly the word operations needed to compute the polynomial modulo one prime, for a null field
+  {
+    return modularCost;
+  }
+
+  public long coeff(int i, int j) // returns the coefficient of a^ib^jc^(d-i-j) modulo the prime, in [0, p)
+  {
+    return field.fromMontgomery(coeffs[i][j]);
+  }
+
+  public ModularPolynomial plus(ModularPolynomial other) // returns the sum of this and other
+  {
+    if (degree != other.degree)
+      throw new IllegalArgumentException("polynomials must be same degree");
+    if (field == null)
+      return sum(other, Math.max(bits, other.bits) + 1);
+    long[][] sum = triangle(degree);
+    for (int i = 0; i <= degree; i++)
+      for (int j = 0; j <= degree - i; j++)
+        sum[i][j] = field.add(coeffs[i][j], other.coeffs[i][j]);
+    return new ModularPolynomial(field, degree, sum, Math.max(bits, other.bits) + 1);
+  }
+
+  public ModularPolynomial minus(ModularPolynomial other) // returns the difference of this and other
+  {
+    if (degree != other.degree)
+      throw new IllegalArgumentException("polynomials must be same degree");
+    if (field == null)
+      return sum(other, Math.max(bits, other.bits) + 1);
+    long[][] difference = triangle(degree);
+    for (int i = 0; i <= degree; i++)
+      for (int j = 0; j <= degree - i; j++)
+        difference[i][j] = field.sub(coeffs[i][j], other.coeffs[i][j]);
+    return new ModularPolynomial(field, degree, difference, Math.max(bits, other.bits) + 1);
+  }
+
+  public ModularPolynomial negate() // returns the negative of this
+  {
+    if (field == null)
+      return this;
+    long[][] negative = triangle(degree);
+    for (int i = 0; i <= degree; i++)
+      for (int j = 0; j <= degree - i; j++)
+        negative[i][j] = field.neg(coeffs[i][j]);
+    return new ModularPolynomial(field, degree, negative, bits);
+  }
+
+  public ModularPolynomial times(ModularPolynomial other) // returns the product of this and other, summing the full 128 bit
+                                                           // products of each coefficient and reducing once at the end
+  {
+    int d = degree + other.degree;
+    long terms = Math.min(size(degree), size(other.degree));
+    int termBits = 64 - Long.numberOfLeadingZeros(terms - 1);
+    if (field == null)
+      return new ModularPolynomial(null, d, null, bits + other.bits + termBits, exactCost + other.exactCost + size(degree) * size(other.degree) * words(bits) * words(other.bits), modularCost + other.modularCost + size(degree) * size(other.degree));
+    long p = field.prime();
+    long[][] hi = triangle(d);
+    long[][] lo = triangle(d);
+    for (int i1 = 0; i1 <= degree; i1++)
+      for (int j1 = 0; j1 <= degree - i1; j1++)
+      {
+        long c = coeffs[i1][j1];
+        if (c == 0)
+          continue;
+        for (int i2 = 0; i2 <= other.degree; i2++)
+        {
+          long[] hiRow = hi[i1 + i2];
+          long[] loRow = lo[i1 + i2];
+          long[] otherRow = other.coeffs[i2];
+          for (int j2 = 0; j2 < otherRow.length; j2++)
+          {
+            long x = otherRow[j2];
+            long l = loRow[j1 + j2] + c * x;
+            long h = hiRow[j1 + j2] + Math.multiplyHigh(c, x) + (Long.compareUnsigned(l, loRow[j1 + j2]) < 0 ? 1 : 0);
+            loRow[j1 + j2] = l;
+            hiRow[j1 + j2] = Long.compareUnsigned(h, p) >= 0 ? h - p : h; // subtracting p * 2^64 keeps the sum below p * 2^64 without changing it modulo p
+          }
+        }
+      }
+    for (int i = 0; i <= d; i++)
+      for (int j = 0; j <= d - i; j++)
+        hi[i][j] = field.reduce(hi[i][j], lo[i][j]);
+    return new ModularPolynomial(field, d, hi, bits + other.bits + termBits);
+  }
+
+  public boolean isZero() // returns whether every coefficient is zero modulo the prime
+  {
+    if (field == null)
+      throw new IllegalStateException("only the bound of the polynomial is known");
+    for (int i = 0; i <= degree; i++)
+      for (int j = 0; j <= degree - i; j++)
+        if (coeffs[i][j] != 0)
+          return false;
+    return true;
+  }
+
+  public static ModularPolynomial dot(ModularPolynomial[] u, ModularPolynomial[] v) // returns the dot product of two vectors
+  {
+    return u[0].times(v[0]).plus(u[1].times(v[1])).plus(u[2].times(v[2]));
+  }
+
+  public static ModularPolynomial[] cross(ModularPolynomial[] u, ModularPolynomial[] v) // returns the cross product of two vectors
+  {
+    ModularPolynomial[] w = new ModularPolynomial[3];
+    w[0] = u[1].times(v[2]).minus(u[2].times(v[1]));
+    w[1] = u[2].times(v[0]).minus(u[0].times(v[2]));
+    w[2] = u[0].times(v[1]).minus(u[1].times(v[0]));
+    return w;
+  }
+
+  public static ModularPolynomial det(ModularPolynomial[] u, ModularPolynomial[] v, ModularPolynomial[] w) // returns the determinant
+                                                                                                          // with rows u, v, w
+  {
+    return dot(u, cross(v, w));
+  }
+
+  private ModularPolynomial sum(ModularPolynomial other, int bits) // returns the bound of the sum or difference of this and other
+  {
+    int b = Math.max(this.bits, other.bits);
+    return new ModularPolynomial(null, degree, null, bits, exactCost + other.exactCost + size(degree) * words(b), modularCost + other.modularCost + size(degree));
+  }
+
+  private static long[][] triangle(int d) // returns a zero triangular array holding the coefficients of a degree d polynomial
+  {
+    long[][] t = new long[d + 1][];
+    for (int i = 0; i <= d; i++)
+      t[i] = new long[d + 1 - i];
+    return t;
+  }
+
+  private static long size(int d) // returns the number of monomials of degree d
+  {
+    return (d + 1L) * (d + 2) / 2;
+  }
+
+  private static long words(int bits) // returns the number of 64 bit words holding a number of the given bit length
+  {
+    return bits / 64 + 1;
+  }
+}
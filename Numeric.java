@@ -0,0 +1,206 @@
+// represents the reference triangle with numeric side lengths, drawn with its vertices at given screen positions
+// points, lines and circles carry double precision shadows in it: the barycentric coordinates of a point, the coefficients
+// (u, v, w) of a line, and the coefficients (u, v, w) of a circle scaled so that k = 1
+// a constructed object computes its shadow from the shadows of the inputs of its construction by a double version of the
+// formula in Geometry, so drawing and hit testing never expand the exact polynomials, and an object given by its polynomials
+// evaluates them in double precision once when its shadow is first needed
+// the side lengths are scaled so that the longest is 1, keeping high degree polynomials in range, which leaves points and lines
+// unchanged and scales circle coefficients by the inverse square of the scale
+
+public class Numeric
+{
+  private static final double[] INF = {1, 1, 1}; // the line at infinity
+  private static volatile Numeric current; // the triangle last drawn in, null if none
+
+  private final double ax, ay, bx, by, cx, cy; // the screen positions of the vertices A, B, C
+  private final double scale; // the longest side length in screen units
+  private final double a, b, c; // the side lengths divided by scale
+  private final double a2, b2, c2; // the squared side lengths divided by the squared scale
+
+  public Numeric(double ax, double ay, double bx, double by, double cx, double cy) // returns the triangle with these vertices
+  {
+    this.ax = ax;
+    this.ay = ay;
+    this.bx = bx;
+    this.by = by;
+    this.cx = cx;
+    this.cy = cy;
+    double sideA = Math.hypot(bx - cx, by - cy);
+    double sideB = Math.hypot(cx - ax, cy - ay);
+    double sideC = Math.hypot(ax - bx, ay - by);
+    scale = Math.max(sideA, Math.max(sideB, sideC));
+    if (scale == 0)
+      throw new IllegalArgumentException("vertices cannot all be the same");
+    a = sideA / scale;
+    b = sideB / scale;
+    c = sideC / scale;
+    a2 = a * a;
+    b2 = b * b;
+    c2 = c * c;
+  }
+
+  public static Numeric of(double ax, double ay, double bx, double by, double cx, double cy) // returns the triangle with these
+                                                                                            // vertices, the one last drawn in if
+                                                                                            // they are unchanged so that shadows
+                                                                                            // already computed are kept
+  {
+    Numeric n = current;
+    if (n == null || n.ax != ax || n.ay != ay || n.bx != bx || n.by != by || n.cx != cx || n.cy != cy)
+    {
+      n = new Numeric(ax, ay, bx, by, cx, cy);
+      current = n;
+    }
+    return n;
+  }
+
+  public double[] eval(HomogenousVector v) // returns the shadow of the point or line with coordinates v
+  {
+    return normalize(v.eval(a, b, c));
+  }
+
+  public double[] eval(HomogenousPolynomial k, HomogenousVector v) // returns the shadow of the circle with coefficients k, v
+  {
+    double[] u = v.eval(a, b, c);
+    double f = k.eval(a, b, c);
+    return new double[] {u[0] / f, u[1] / f, u[2] / f};
+  }
+
+  public double[] cross(double[] u, double[] v) // returns the line through two points or the intersection of two lines
+  {
+    return normalize(crossProduct(u, v));
+  }
+
+  public double[] average(double[] P1, double[] P2, int w1, int w2) // returns the weighted average of two points as in Geometry
+  {
+    double s1 = P1[0] + P1[1] + P1[2];
+    double s2 = P2[0] + P2[1] + P2[2];
+    double[] v = new double[3];
+    for (int i = 0; i < 3; i++)
+      v[i] = w1 * P1[i] * s2 - w2 * P2[i] * s1;
+    return normalize(v);
+  }
+
+  public double[] perpInfPoint(double[] l) // returns the infinity point perpendicular to a line
+  {
+    double[] inf = crossProduct(l, INF);
+    return cross(INF, new double[] {(b2 + c2 - a2) * inf[0], (c2 + a2 - b2) * inf[1], (a2 + b2 - c2) * inf[2]});
+  }
+
+  public double[] circumcircle(double[] P1, double[] P2, double[] P3) // returns the circle through three finite points
+  {
+    double[] p1 = finite(P1);
+    double[] p2 = finite(P2);
+    double[] p3 = finite(P3);
+    return solve(p1, p2, p3, power(p1), power(p2), power(p3));
+  }
+
+  public double[] radAxis(double[] c1, double[] c2) // returns the radical axis of two circles
+  {
+    return normalize(new double[] {c1[0] - c2[0], c1[1] - c2[1], c1[2] - c2[2]});
+  }
+
+  public double[] center(double[] circle) // returns the center of a circle, by the formula in Circle
+  {
+    double u = circle[0];
+    double v = circle[1];
+    double w = circle[2];
+    double x = a2 * (-2 * u + v + w) + (b2 - c2) * (v - w) + a2 * (b2 + c2 - a2);
+    double y = b2 * (u - 2 * v + w) + (c2 - a2) * (w - u) + b2 * (c2 + a2 - b2);
+    double z = c2 * (u + v - 2 * w) + (a2 - b2) * (u - v) + c2 * (a2 + b2 - c2);
+    return normalize(new double[] {x, y, z});
+  }
+
+  public double radius(double[] circle) // returns the radius of a circle in screen units, the square root of minus the power of
+                                        // its center
+  {
+    double[] O = finite(center(circle));
+    double squ = power(O) - (circle[0] * O[0] + circle[1] * O[1] + circle[2] * O[2]);
+    return scale * Math.sqrt(Math.max(squ, 0));
+  }
+
+  public double power(double[] circle, double[] P) // returns the power of a finite point with respect to a circle, in units of the
+                                                   // squared scale
+  {
+    double[] p = finite(P);
+    return circle[0] * p[0] + circle[1] * p[1] + circle[2] * p[2] - power(p);
+  }
+
+  public static double det(double[] u, double[] v, double[] w) // returns the determinant with rows u, v, w, which vanishes when
+                                                               // three points are collinear or three lines concurrent
+  {
+    double[] s = crossProduct(v, w);
+    return u[0] * s[0] + u[1] * s[1] + u[2] * s[2];
+  }
+
+  public double[] toScreen(double[] P) // returns the screen position of a finite point
+  {
+    double[] p = finite(P);
+    return new double[] {p[0] * ax + p[1] * bx + p[2] * cx, p[0] * ay + p[1] * by + p[2] * cy};
+  }
+
+  public double[] screenLine(double[] l) // returns (p, q, r) with pX + qY + r = 0 the equation of a line on the screen, the
+                                         // affine function taking the values u, v, w at A, B, C
+  {
+    return solve(new double[] {ax, ay, 1}, new double[] {bx, by, 1}, new double[] {cx, cy, 1}, l[0], l[1], l[2]);
+  }
+
+  private double power(double[] p) // returns a^2yz+b^2zx+c^2xy for a point normalized so that x+y+z=1, minus its power with
+                                   // respect to the circumcircle
+  {
+    return a2 * p[1] * p[2] + b2 * p[2] * p[0] + c2 * p[0] * p[1];
+  }
+
+  private static double[] finite(double[] P) // returns the coordinates of a finite point normalized so that x+y+z=1
+  {
+    double s = P[0] + P[1] + P[2];
+    return new double[] {P[0] / s, P[1] / s, P[2] / s};
+  }
+
+  private static double[] solve(double[] r1, double[] r2, double[] r3, double f1, double f2, double f3) // returns the solution
+                                                                                   // of the linear system with rows r1, r2, r3
+  {
+    double[] s23 = crossProduct(r2, r3);
+    double[] s31 = crossProduct(r3, r1);
+    double[] s12 = crossProduct(r1, r2);
+    double det = r1[0] * s23[0] + r1[1] * s23[1] + r1[2] * s23[2];
+    double[] x = new double[3];
+    for (int i = 0; i < 3; i++)
+      x[i] = (f1 * s23[i] + f2 * s31[i] + f3 * s12[i]) / det;
+    return x;
+  }
+
+  private static double[] crossProduct(double[] u, double[] v) // returns the cross product of two vectors
+  {
+    return new double[] {u[1] * v[2] - u[2] * v[1], u[2] * v[0] - u[0] * v[2], u[0] * v[1] - u[1] * v[0]};
+  }
+
+  private static double[] normalize(double[] v) // scales v so that its largest coordinate has absolute value 1
+  {
+    double max = Math.max(Math.abs(v[0]), Math.max(Math.abs(v[1]), Math.abs(v[2])));
+    if (max == 0 || Double.isNaN(max) || Double.isInfinite(max))
+      return v;
+    return new double[] {v[0] / max, v[1] / max, v[2] / max};
+  }
+
+  public static class Shadow // a shadow together with the triangle it was computed in
+  {
+    private final Numeric triangle; // the triangle of the shadow
+    private final double[] coords; // the coordinates of the shadow
+
+    public Shadow(Numeric triangle, double[] coords) // sets the triangle and coordinates
+    {
+      this.triangle = triangle;
+      this.coords = coords;
+    }
+
+    public Numeric triangle() // getter for triangle
+    {
+      return triangle;
+    }
+
+    public double[] coords() // getter for coords
+    {
+      return coords;
+    }
+  }
+}
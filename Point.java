@@ -7,7 +7,10 @@ import java.math.*;
  */
 public class Point
 {
-  private HomogenousVector coords; // stores the coordinates of the point
+  private volatile HomogenousVector coords; // stores the coordinates of the point, null until expanded from construction
+  private Construction<HomogenousVector> construction; // how the point is constructed from others, null if given by coordinates
+  private int hash; // the cached hash of the coordinates, 0 if not yet computed
+  private volatile Numeric.Shadow shadow; // the coordinates of the point in the triangle last drawn in, null until needed
 
   /**
    *
@@ -64,9 +67,19 @@ public class Point
   {
     if (l1.equals(l2))
       throw new IllegalArgumentException("lines cannot be the same");
-    HomogenousVector v = l1.getCoeffs().cross(l2.getCoeffs());
-    v.reduce();
-    this.coords = v;
+    construction = new Construction<HomogenousVector>(l1.degree() + l2.degree(), () -> l1.getCoeffs().cross(l2.getCoeffs()), t -> Modular.sampleField().cross(l1.sample(t), l2.sample(t)), n -> n.cross(l1.shadow(n), l2.shadow(n)));
+    check();
+  }
+
+  /**
+   *
+   * @param construction
+   */
+  public Point(Construction<HomogenousVector> construction) // sets the construction of the point, its coordinates being
+                                                            // expanded when first needed
+  {
+    this.construction = construction;
+    check();
   }
 
   /**
@@ -76,6 +89,16 @@ public class Point
   public Point(Point other) // copy constructor
   {
     coords = other.coords;
+    construction = other.construction;
+    hash = other.hash;
+    shadow = other.shadow;
+  }
+
+  private void check() // expands the coordinates at once if the construction has too high a degree, or if it vanishes at a
+                       // random point so that only expanding can tell whether its coordinates are all zero
+  {
+    if (construction.degree() > Construction.MAX_DEGREE || Modular.vanishes(construction.sample(0)))
+      getCoords();
   }
 
   /**
@@ -83,18 +106,67 @@ public class Point
    * @param other
    * @return
    */
-  public boolean equals(Point other) // returns whether other has the same coordinates
+  public boolean equals(Point other) // returns whether other has the same coordinates, which it does not if they are not in
+                                      // the same ratio at a random point
   {
-    return coords.equals(other.coords);
+    if (this == other)
+      return true;
+    if (!Modular.vanishes(Modular.sampleField().cross(sample(0), other.sample(0))))
+      return false;
+    return getCoords().equals(other.getCoords());
   }
 
   /**
    *
+   * @param o
    * @return
    */
-  public HomogenousVector getCoords() // getter for coords
+  public boolean equals(Object o) // returns whether o is a point with the same coordinates
   {
-    return coords;
+    if (o instanceof Point)
+      return equals((Point) o);
+    else
+      return false;
+  }
+
+  /**
+   *
+   * @return
+   */
+  public HomogenousVector getCoords() // getter for coords, expanding them from the construction the first time
+  {
+    HomogenousVector v = coords;
+    if (v == null)
+    {
+      v = construction.expand();
+      if (v.equalsZero())
+        throw new IllegalArgumentException("coordinates cannot all be zero");
+      v.reduce();
+      coords = v;
+    }
+    return v;
+  }
+
+  /**
+   *
+   * @return
+   */
+  public int degree() // returns the degree of the coordinates, or a bound on it if they are not yet expanded
+  {
+    HomogenousVector v = coords;
+    return v != null ? v.degree() : construction.degree();
+  }
+
+  /**
+   *
+   * @param t
+   * @return
+   */
+  public long[] sample(int t) // returns coordinates of the point at the random point Modular.sample(t) in Montgomery form,
+                              // from the construction if they are not yet expanded, not to be modified
+  {
+    HomogenousVector v = coords;
+    return v != null ? v.sample(t) : construction.sample(t);
   }
 
   /**
@@ -103,6 +175,7 @@ public class Point
    */
   public String toString() // returns String format of the point coordinates
   {
+    HomogenousVector coords = getCoords();
     return "( " + coords.getX() + " : " + coords.getY() + " : " + coords.getZ() + " )";
   }
 
@@ -121,9 +194,11 @@ public class Point
    * @param l
    * @return
    */
-  public boolean on(Line l) // returns whether this is on line l, checks by dot product of coordinates and coefficients
+  public boolean on(Line l) // returns whether this is on line l, checks by dot product of coordinates and coefficients,
+                            // first at random points
   {
-    return coords.perp(l.getCoeffs());
+    Modular field = Modular.sampleField();
+    return Modular.sampleZero(degree() + l.degree(), t -> field.dot(sample(t), l.sample(t)), () -> getCoords().perp(l.getCoeffs()));
   }
 
   /**
@@ -152,7 +227,7 @@ public class Point
    */
   public HomogenousPolynomial weight() // returns the weight of the point, i.e. the sum of its coordinates
   {
-    return coords.weight();
+    return getCoords().weight();
   }
 
   /**
@@ -161,7 +236,7 @@ public class Point
    */
   public HomogenousPolynomial getX() // getter for x coordinate
   {
-    return coords.getX();
+    return getCoords().getX();
   }
 
   /**
@@ -170,7 +245,7 @@ public class Point
    */
   public HomogenousPolynomial getY() // getter for y coordinate
   {
-    return coords.getY();
+    return getCoords().getY();
   }
 
   /**
@@ -179,7 +254,7 @@ public class Point
    */
   public HomogenousPolynomial getZ() // getter for z coordinate
   {
-    return coords.getZ();
+    return getCoords().getZ();
   }
 
   /**
@@ -187,13 +262,29 @@ public class Point
    * @param c
    * @return
    */
-  public boolean on(Circle c) // returns whether this is on c, checks by plugging coordinates into circle equation
+  public boolean on(Circle c) // returns whether this is on c, checks by plugging coordinates into circle equation at random
+                              // points and then modulo primes
   {
-    HomogenousPolynomial pow = c.getCoeff().times(new HomogenousPolynomial("a^2").times(coords.getY().times(coords.getZ())).plus(new HomogenousPolynomial("b^2").times(coords.getZ().times(coords.getX()))).plus(new HomogenousPolynomial("c^2").times(coords.getX().times(coords.getY()))));
-    HomogenousPolynomial rad = weight().times(coords.dot(c.getRadCoeffs()));
-    return pow.equals(rad);
+    return Modular.sampleZero(c.degree() + 2 + 2 * degree(), t -> c.sample(sample(t), t), () ->
+    {
+      HomogenousVector coords = getCoords();
+      return Modular.isZero(field ->
+      {
+        ModularPolynomial[] v = coords.mod(field);
+        ModularPolynomial[] products = {v[1].times(v[2]), v[2].times(v[0]), v[0].times(v[1])};
+        ModularPolynomial pow = new ModularPolynomial(c.getCoeff(), field).times(ModularPolynomial.dot(Constants.SQU.mod(field), products));
+        ModularPolynomial rad = v[0].plus(v[1]).plus(v[2]).times(ModularPolynomial.dot(v, c.getRadCoeffs().mod(field)));
+        return pow.minus(rad);
+      }, () ->
+      {
+        HomogenousPolynomial pow = c.getCoeff().times(Constants.A2.times(coords.getY().times(coords.getZ())).plus(Constants.B2.times(coords.getZ().times(coords.getX()))).plus(Constants.C2.times(coords.getX().times(coords.getY()))));
+        HomogenousPolynomial rad = coords.weight().times(coords.dot(c.getRadCoeffs()));
+        return pow.equals(rad);
+      });
+    });
   }
 
+
   /**
    *
    * @param ax
@@ -206,22 +297,31 @@ public class Point
    */
   public int[] screenCoords(int ax, int ay, int bx, int by, int cx, int cy) // draws the point in g given coordinates of triangle
   {
-    int a = (int) Math.round(Math.sqrt((bx - cx) * (bx - cx) + (by - cy) * (by - cy)));
-    int b = (int) Math.round(Math.sqrt((cx - ax) * (cx - ax) + (cy - ay) * (cy - ay)));
-    int c = (int) Math.round(Math.sqrt((ax - bx) * (ax - bx) + (ay - by) * (ay - by)));
-    BigDecimal[] u = coords.eval(new BigInteger(a + ""), new BigInteger(b + ""), new BigInteger(c + ""));
-    double[] v = new double[3];
-    v[0] = u[0].doubleValue();
-    v[1] = u[1].doubleValue();
-    v[2] = u[2].doubleValue();
-    int x = (int) Math.round(v[0] * ax + v[1] * bx + v[2] * cx);
-    int y = (int) Math.round(v[0] * ay + v[1] * by + v[2] * cy);
+    Numeric n = Numeric.of(ax, ay, bx, by, cx, cy);
+    double[] v = n.toScreen(shadow(n));
     int[] sC = new int[2];
-    sC[0] = x;
-    sC[1] = y;
+    sC[0] = (int) Math.round(v[0]);
+    sC[1] = (int) Math.round(v[1]);
     return sC;
   }
 
+  /**
+   *
+   * @param n
+   * @return
+   */
+  public double[] shadow(Numeric n) // returns the double coordinates of the point in triangle n, computed once from the
+                                    // shadows of the inputs of its construction or else from its coordinates, not to be modified
+  {
+    Numeric.Shadow s = shadow;
+    if (s == null || s.triangle() != n)
+    {
+      s = new Numeric.Shadow(n, construction != null ? construction.eval(n) : n.eval(coords));
+      shadow = s;
+    }
+    return s.coords();
+  }
+
   /**
    *
    * @param c
@@ -320,8 +420,15 @@ public class Point
    *
    * @return
    */
-  public int hashCode()
+  public int hashCode() // returns the cached hash of the coordinates, the same for all equal points, found from a sample so
+                        // that the coordinates need not be expanded
   {
-    return coords.hashCode();
+    int h = hash;
+    if (h == 0)
+    {
+      h = HomogenousVector.projectiveHash(sample(0));
+      hash = h;
+    }
+    return h;
   }
 }
@@ -0,0 +1,206 @@
+// checks known answers of the predicates and algebra, printing each failure and exiting with status 1 if there was any
+// run with java SelfCheck after changing Geometry, Modular, Grobner or ConjectureSearch
+
+import java.math.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+
+public class SelfCheck
+{
+  private static int failures = 0; // the number of checks failed so far
+
+  public static void main(String[] args)
+  {
+    checkPolynomialArray();
+    checkDivision();
+    checkGrobner();
+    checkCyclic();
+    checkCircleEquality();
+    checkCacheLaziness();
+    checkSearch();
+    if (failures > 0)
+    {
+      System.out.println(failures + " checks failed");
+      System.exit(1);
+    }
+    System.out.println("all checks passed");
+  }
+
+  private static void checkPolynomialArray() // checks that a polynomial given by an array neither changes it nor changes with it
+  {
+    BigInteger big = BigInteger.ONE.shiftLeft(70);
+    BigInteger[][] coeffs = new BigInteger[3][3];
+    for (int i = 0; i <= 2; i++)
+      for (int j = 0; j <= 2 - i; j++)
+        coeffs[i][j] = big.add(BigInteger.valueOf(i + 3 * j));
+    coeffs[1][0] = null;
+    HomogenousPolynomial p = new HomogenousPolynomial(coeffs);
+    HomogenousPolynomial q = new HomogenousPolynomial(p);
+    int hash = p.hashCode();
+    check("a null coefficient is left null in the array", coeffs[1][0] == null);
+    check("a null coefficient is read as 0", p.coeff(1, 0).signum() == 0);
+    coeffs[0][0] = BigInteger.ONE;
+    coeffs[1][0] = BigInteger.ONE;
+    check("changing the array leaves the polynomial unchanged", p.coeff(0, 0).equals(big) && p.coeff(1, 0).signum() == 0);
+    check("changing the array leaves the hash unchanged", p.hashCode() == hash && p.equals(q));
+  }
+
+  private static void checkDivision() // checks division with remainder by a divisor of higher degree than the dividend
+  {
+    HomogenousPolynomial p = new HomogenousPolynomial("a+2b");
+    HomogenousPolynomial q = new HomogenousPolynomial("a^2-bc");
+    HomogenousPolynomial[] qr = p.divide(q);
+    check("dividing by a divisor of higher degree gives quotient 0", qr[0].equalsZero());
+    check("dividing by a divisor of higher degree gives remainder the dividend", qr[1].equals(p));
+    check("a divisor of higher degree does not divide exactly", p.divideExact(q) == null);
+    check("a divisor of higher degree divides 0 exactly", new HomogenousPolynomial(1).divideExact(q).equalsZero());
+  }
+
+  private static void checkGrobner() // checks gcds, factorizations and ideal membership on polynomials with known answers
+  {
+    HomogenousPolynomial g = new HomogenousPolynomial("a^2+bc-3c^2");
+    HomogenousPolynomial p = new HomogenousPolynomial("a+2b");
+    HomogenousPolynomial q = new HomogenousPolynomial("a^2-b^2+5ac");
+    HomogenousPolynomial gcd = Grobner.gcd(p.times(g), q.times(g));
+    check("gcd(pg, qg) is divisible by g", gcd.degree() == g.degree() && gcd.divideExact(g) != null);
+    checkFactors("a product of linear and quadratic factors with a repeated factor", "a+b", "a+b", "a^2-2bc+3c^2", "b^3-ac^2+7abc");
+    checkFactors("a product with a factor that splits modulo every prime", "a^4+c^4", "2a-b+c", "ab+bc+ca");
+    checkFactors("an irreducible quartic that splits modulo every prime", "a^4-10a^2c^2+c^4+b^4");
+    check("a^2-b^2 is in the ideal of a-b", Grobner.member(new HomogenousPolynomial("a^2-b^2"), new HomogenousPolynomial("a-b")));
+    check("a^2+b^2 is not in the ideal of a-b", !Grobner.member(new HomogenousPolynomial("a^2+b^2"), new HomogenousPolynomial("a-b")));
+  }
+
+  private static void checkFactors(String name, String... factors) // checks that factoring the product of the factors, each
+                                                                   // irreducible, finds as many factors with the same product
+  {
+    HomogenousPolynomial p = new HomogenousPolynomial("1");
+    for (String f : factors)
+      p = p.times(new HomogenousPolynomial(f));
+    HomogenousPolynomial[] found = Grobner.factor(p);
+    HomogenousPolynomial product = new HomogenousPolynomial("1");
+    for (HomogenousPolynomial f : found)
+      product = product.times(f);
+    HomogenousPolynomial quotient = p.divideExact(product);
+    check("factoring " + name + " finds every factor", found.length == factors.length);
+    check("factoring " + name + " gives the polynomial up to a constant", quotient != null && quotient.degree() == 0);
+  }
+
+  private static void checkCyclic() // checks cyclic on degenerate inputs whose sampled determinant vanishes identically, in both
+                                    // exact and sampled mode
+  {
+    Point A = Constants.A;
+    Point B = Constants.B;
+    Point infA = Geometry.infPoint(Constants.SIDE_A);
+    Point infB = Geometry.infPoint(Constants.SIDE_B);
+    Point D = new Point("a", "b", "c");
+    Point E = new Point("a^2", "b^2", "c^2");
+    boolean exact = Modular.isExact();
+    try
+    {
+      for (boolean mode : new boolean[] {true, false})
+      {
+        Modular.setExact(mode);
+        String suffix = mode ? " (exact)" : " (sampled)";
+        check("collinear points and a point at infinity are not concyclic" + suffix, !Geometry.cyclic(A, Geometry.midpoint(A, B), B, infB));
+        check("two points at infinity are rejected" + suffix, throwsIllegalArgument(() -> Geometry.cyclic(A, B, infA, infB)));
+        check("the vertices and the orthocenter are not concyclic" + suffix, !Geometry.cyclic(A, B, Constants.C, Geometry.orthocenter(A, B, Constants.C)));
+        check("the feet of the altitudes and the midpoints are concyclic" + suffix, Geometry.cyclic(Geometry.foot(A, B, Constants.C), Geometry.foot(B, A, Constants.C), Geometry.midpoint(A, B), Geometry.midpoint(B, Constants.C)));
+        check("four generic points are not concyclic" + suffix, !Geometry.cyclic(A, B, D, E));
+      }
+    }
+    finally
+    {
+      Modular.setExact(exact);
+    }
+  }
+
+  private static void checkCircleEquality() // checks equals on circles whose equations have not been expanded yet, in both exact
+                                            // and sampled mode
+  {
+    Point A = Constants.A;
+    Point B = Constants.B;
+    Point C = Constants.C;
+    boolean exact = Modular.isExact();
+    try
+    {
+      for (boolean mode : new boolean[] {true, false})
+      {
+        Modular.setExact(mode);
+        String suffix = mode ? " (exact)" : " (sampled)";
+        Circle midpoints = Geometry.circumcircle(Geometry.midpoint(B, C), Geometry.midpoint(C, A), Geometry.midpoint(A, B));
+        Circle feet = Geometry.circumcircle(Geometry.foot(A, B, C), Geometry.foot(B, C, A), Geometry.foot(C, A, B));
+        check("the nine point circle through the midpoints and through the feet are equal" + suffix, midpoints.equals(feet));
+        Circle expanded = Geometry.circumcircle(Geometry.midpoint(B, C), Geometry.midpoint(C, A), Geometry.midpoint(A, B));
+        check("a lazy circle equals the same circle expanded" + suffix, feet.equals(new Circle(expanded.getCoeff(), expanded.getRadCoeffs())));
+        check("the nine point circle and the circumcircle differ" + suffix, !feet.equals(new Circle()));
+      }
+    }
+    finally
+    {
+      Modular.setExact(exact);
+    }
+  }
+
+  private static void checkCacheLaziness() // checks that constructing from equal points not yet expanded does not expand them
+  {
+    AtomicInteger expansions = new AtomicInteger();
+    Point G = Geometry.centroid(Constants.A, Constants.B, Constants.C);
+    Point[] copies = new Point[2];
+    for (int k = 0; k < 2; k++)
+      copies[k] = new Point(new Construction<HomogenousVector>(G.degree(), () ->
+      {
+        expansions.incrementAndGet();
+        return G.getCoords();
+      }, t -> G.sample(t), n -> G.shadow(n)));
+    Geometry.midpoint(copies[0], Constants.A);
+    Geometry.midpoint(copies[1], Constants.A);
+    Geometry.midpoint(copies[0], Constants.A);
+    check("constructing from equal points keeps them unexpanded", expansions.get() == 0);
+  }
+
+  private static void checkSearch() // checks the theorems found by a search one level deep from the reference triangle
+  {
+    Point A = Constants.A;
+    Point B = Constants.B;
+    Point C = Constants.C;
+    ArrayList<ConjectureSearch.Theorem> theorems = new ArrayList<ConjectureSearch.Theorem>();
+    new ConjectureSearch(1, 100, 100).search(theorems::add);
+    Point[] euler = {Geometry.centroid(A, B, C), Geometry.circumcenter(A, B, C), Geometry.orthocenter(A, B, C)};
+    check("the Euler line is reported exactly once", count(theorems, "col", euler) == 1);
+    check("a midpoint on its own segment is not reported", count(theorems, "col", A, B, Geometry.midpoint(A, B)) == 0);
+    check("a foot on its own side is not reported", count(theorems, "col", B, C, Geometry.foot(A, B, C)) == 0);
+  }
+
+  private static int count(List<ConjectureSearch.Theorem> theorems, String predicate, Point... points) // returns the number of
+                                                                         // theorems of the predicate about all these points
+  {
+    int count = 0;
+    for (ConjectureSearch.Theorem theorem : theorems)
+      if (theorem.getPredicate().equals(predicate) && Arrays.asList(theorem.getObjects()).containsAll(Arrays.asList(points)))
+        count++;
+    return count;
+  }
+
+  private static boolean throwsIllegalArgument(BooleanSupplier s) // returns whether s throws an IllegalArgumentException
+  {
+    try
+    {
+      s.getAsBoolean();
+      return false;
+    }
+    catch (IllegalArgumentException e)
+    {
+      return true;
+    }
+  }
+
+  private static void check(String name, boolean passed) // records a check, printing its name if it failed
+  {
+    if (!passed)
+    {
+      failures++;
+      System.out.println("FAILED: " + name);
+    }
+  }
+}
@@ -0,0 +1,119 @@
+// a uniform grid of square cells over the screen, finding the objects that can be hit at a pixel without scanning them all
+// each object is stored in every cell its hit region meets, a box around a point, a band around a line segment or an annulus
+// around a circle, so the objects hit at a pixel are among those stored in its cell and only those need an exact test
+// an object is stored in no cell when its region misses the grid
+
+import java.util.*;
+
+public class SpatialGrid<T>
+{
+  private final int cellSize; // the side of a cell in pixels
+  private final int columns; // the number of columns of cells
+  private final int rows; // the number of rows of cells
+  private final ArrayList<ArrayList<T>> cells; // the objects stored in each cell, row by row
+  private final HashMap<T, int[]> cellsOf = new HashMap<T, int[]>(); // the cells each object is stored in
+
+  public SpatialGrid(int width, int height, int cellSize) // returns an empty grid covering the pixels [0, width) x [0, height)
+  {
+    if (width <= 0 || height <= 0 || cellSize <= 0)
+      throw new IllegalArgumentException("dimensions must be positive");
+    this.cellSize = cellSize;
+    columns = (width + cellSize - 1) / cellSize;
+    rows = (height + cellSize - 1) / cellSize;
+    cells = new ArrayList<ArrayList<T>>(columns * rows);
+    for (int i = 0; i < columns * rows; i++)
+      cells.add(new ArrayList<T>());
+  }
+
+  public void addBox(T t, double x1, double y1, double x2, double y2) // stores t in the cells meeting the box with corners
+                                                                      // (x1, y1) and (x2, y2), x1 <= x2 and y1 <= y2
+  {
+    add(t, x1, y1, x2, y2, (left, top) -> true);
+  }
+
+  public void addSegment(T t, double x1, double y1, double x2, double y2, double margin) // stores t in the cells within margin of
+                                                                                         // the segment from (x1, y1) to (x2, y2)
+  {
+    double dx = x2 - x1;
+    double dy = y2 - y1;
+    double length2 = dx * dx + dy * dy;
+    double reach = margin + cellSize / Math.sqrt(2); // the distance from the center of a cell to the segment when it meets it
+    add(t, Math.min(x1, x2) - margin, Math.min(y1, y2) - margin, Math.max(x1, x2) + margin, Math.max(y1, y2) + margin, (left, top) ->
+    {
+      double px = left + cellSize / 2.0 - x1;
+      double py = top + cellSize / 2.0 - y1;
+      double s = length2 == 0 ? 0 : Math.max(0, Math.min(1, (px * dx + py * dy) / length2));
+      double ex = px - s * dx;
+      double ey = py - s * dy;
+      return ex * ex + ey * ey <= reach * reach;
+    });
+  }
+
+  public void addRing(T t, double x, double y, double r, double margin) // stores t in the cells meeting the annulus of points at a
+                                                                        // distance from r - margin to r + margin from (x, y)
+  {
+    double outer = r + margin;
+    double inner = Math.max(0, r - margin);
+    add(t, x - outer, y - outer, x + outer, y + outer, (left, top) ->
+    {
+      double nearX = Math.max(left, Math.min(x, left + cellSize)) - x;
+      double nearY = Math.max(top, Math.min(y, top + cellSize)) - y;
+      double farX = Math.max(Math.abs(left - x), Math.abs(left + cellSize - x));
+      double farY = Math.max(Math.abs(top - y), Math.abs(top + cellSize - y));
+      return nearX * nearX + nearY * nearY <= outer * outer && farX * farX + farY * farY >= inner * inner;
+    });
+  }
+
+  public void remove(T t) // removes t from every cell it is stored in
+  {
+    int[] stored = cellsOf.remove(t);
+    if (stored != null)
+      for (int i : stored)
+        cells.get(i).remove(t);
+  }
+
+  public List<T> at(int x, int y) // returns the objects stored in the cell of the pixel (x, y), none outside the grid
+  {
+    if (x < 0 || y < 0 || x >= columns * cellSize || y >= rows * cellSize)
+      return Collections.emptyList();
+    return Collections.unmodifiableList(cells.get(y / cellSize * columns + x / cellSize));
+  }
+
+  public void clear() // removes every object
+  {
+    for (ArrayList<T> cell : cells)
+      cell.clear();
+    cellsOf.clear();
+  }
+
+  public int size() // returns the number of objects stored
+  {
+    return cellsOf.size();
+  }
+
+  private void add(T t, double x1, double y1, double x2, double y2, CellTest meets) // stores t, replacing any earlier entry, in
+                                                                                    // the cells meeting the box that pass the test
+  {
+    remove(t);
+    int firstColumn = (int) Math.max(0, Math.floor(x1 / cellSize));
+    int lastColumn = (int) Math.min(columns - 1, Math.floor(x2 / cellSize));
+    int firstRow = (int) Math.max(0, Math.floor(y1 / cellSize));
+    int lastRow = (int) Math.min(rows - 1, Math.floor(y2 / cellSize));
+    int[] stored = new int[Math.max(0, (lastColumn - firstColumn + 1) * (lastRow - firstRow + 1))];
+    int count = 0;
+    for (int row = firstRow; row <= lastRow; row++)
+      for (int column = firstColumn; column <= lastColumn; column++)
+        if (meets.test(column * cellSize, row * cellSize))
+        {
+          int i = row * columns + column;
+          cells.get(i).add(t);
+          stored[count++] = i;
+        }
+    cellsOf.put(t, Arrays.copyOf(stored, count));
+  }
+
+  private interface CellTest // decides whether an object's region meets a cell
+  {
+    boolean test(double left, double top); // returns whether the region meets the cell with this top left corner
+  }
+}